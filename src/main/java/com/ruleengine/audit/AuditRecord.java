@@ -0,0 +1,25 @@
+package com.ruleengine.audit;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+// One audited decision: which rule, a hash of the evaluated data, the outcome and when (epoch millis).
+// A whole-rule-set decision (/evaluateAll) is a single record with ruleId ALL_RULES that lists the
+// matching rules in matchedRuleIds, every other rule having evaluated to false; its result is whether
+// any rule matched. matchedRuleIds is null for single-rule decisions.
+public record AuditRecord(long ruleId, long inputsHash, boolean result, long timestamp, long[] matchedRuleIds) {
+
+    public static final long ALL_RULES = 0; // rule ids start at 1
+
+    public AuditRecord(long ruleId, long inputsHash, boolean result, long timestamp) {
+        this(ruleId, inputsHash, result, timestamp, null);
+    }
+
+    // Space-separated matching rule ids, or null for a single-rule decision
+    public String matchedRuleIdsText() {
+        if (matchedRuleIds == null) {
+            return null;
+        }
+        return Arrays.stream(matchedRuleIds).mapToObj(Long::toString).collect(Collectors.joining(" "));
+    }
+}
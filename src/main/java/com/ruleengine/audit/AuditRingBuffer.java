@@ -0,0 +1,90 @@
+package com.ruleengine.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded multi-producer / single-consumer ring of audit records.
+//
+// Producers claim a sequence number with a CAS on the tail, fill the slot's preallocated
+// fields and then publish the slot by storing its sequence number (release). The consumer
+// reads slots in sequence order until it reaches one that is not published yet, then moves
+// the head, which frees the slots for the next lap. No locks and no allocation on the
+// producer side.
+final class AuditRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final long[] ruleIds;
+    private final long[] inputHashes;
+    private final long[] timestamps;
+    private final boolean[] results;
+    private final long[][] matchedRuleIds;
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long head;
+
+    AuditRingBuffer(int requestedCapacity) {
+        int size = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.ruleIds = new long[size];
+        this.inputHashes = new long[size];
+        this.timestamps = new long[size];
+        this.results = new boolean[size];
+        this.matchedRuleIds = new long[size][];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    // Returns false instead of waiting when the ring is full
+    boolean offer(long ruleId, long inputsHash, boolean result, long timestamp, long[] matched) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        ruleIds[slot] = ruleId;
+        inputHashes[slot] = inputsHash;
+        results[slot] = result;
+        timestamps[slot] = timestamp;
+        matchedRuleIds[slot] = matched;
+        published.lazySet(slot, sequence);
+        return true;
+    }
+
+    // Consumer side: moves up to max published records, in order, into out
+    int drainTo(List<AuditRecord> out, int max) {
+        long next = head;
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) next & mask;
+            if (published.get(slot) != next) {
+                break;
+            }
+            out.add(new AuditRecord(ruleIds[slot], inputHashes[slot], results[slot], timestamps[slot],
+                    matchedRuleIds[slot]));
+            matchedRuleIds[slot] = null;
+            next++;
+            drained++;
+        }
+        head = next;
+        return drained;
+    }
+
+    // Claimed but not yet consumed, including slots still being filled
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ruleengine.audit;
+
+import java.io.IOException;
+import java.util.List;
+
+// Durable destination for audit records. Called from the single writer thread only; each call
+// should commit the whole batch at once.
+public interface AuditSink {
+
+    void write(List<AuditRecord> batch) throws IOException;
+
+    default void close() throws IOException {
+    }
+}
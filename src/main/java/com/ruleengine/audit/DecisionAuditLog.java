@@ -0,0 +1,284 @@
+package com.ruleengine.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Records every decision without putting a write on the evaluate path. record() hashes the
+// inputs and enqueues onto a lock-free ring; one background writer drains the ring and hands
+// the records to the AuditSink in batches (group commit). A batch is written once it is full
+// or its oldest record has waited rules.audit.flush-interval-ms.
+//
+// When the ring is full the overflow policy decides: DROP (the default) discards the record,
+// SAMPLE keeps only every sample-every'th record once the ring is half full and drops when it
+// is full, BLOCK waits for space. Lost records are counted. BLOCK loses nothing but ties the
+// caller's latency to the sink's throughput, so it is an explicit opt-in.
+//
+// An /evaluateAll decides every rule; it is recorded as one record listing the matching rules
+// (see AuditRecord), so its cost does not grow with the rule set.
+//
+// A batch the sink rejects is retried with backoff; if it still fails it is appended to the
+// local spill file (same format as FileAuditSink) so it can be replayed, and only counted as
+// failed when that fails too.
+@Slf4j
+@Service
+public class DecisionAuditLog {
+
+    public enum OverflowPolicy {
+        BLOCK, DROP, SAMPLE
+    }
+
+    public record Metrics(long enqueued, long written, long dropped, long sampledOut, long spilled,
+                          long failed, long batches, int pending, int capacity, long lastLagMillis, long maxLagMillis,
+                          long blockedMillis) {
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long RETRY_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final AuditSink sink;
+    private final boolean enabled;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleEvery;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int retries;
+    private final String spillFile;
+    private final AuditRingBuffer ring;
+    private AuditSink spillSink; // opened on first spill, writer thread only
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    // Without retries or a spill file: a failed batch is counted and dropped
+    public DecisionAuditLog(AuditSink sink, boolean enabled, int capacity, OverflowPolicy overflowPolicy,
+                            int sampleEvery, int batchSize, long flushIntervalMillis) {
+        this(sink, enabled, capacity, overflowPolicy, sampleEvery, batchSize, flushIntervalMillis, 0, "");
+    }
+
+    @Autowired
+    public DecisionAuditLog(AuditSink sink,
+                            @Value("${rules.audit.enabled:true}") boolean enabled,
+                            @Value("${rules.audit.capacity:65536}") int capacity,
+                            @Value("${rules.audit.overflow:DROP}") OverflowPolicy overflowPolicy,
+                            @Value("${rules.audit.sample-every:10}") int sampleEvery,
+                            @Value("${rules.audit.batch-size:500}") int batchSize,
+                            @Value("${rules.audit.flush-interval-ms:20}") long flushIntervalMillis,
+                            @Value("${rules.audit.retries:3}") int retries,
+                            @Value("${rules.audit.spill-file:audit/spilled-decisions.log}") String spillFile) {
+        this.sink = sink;
+        this.enabled = enabled;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.retries = Math.max(0, retries);
+        this.spillFile = spillFile;
+        this.ring = new AuditRingBuffer(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "decision-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Stops accepting records, writes what is queued and closes the sink
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sink.close();
+            if (spillSink != null) {
+                spillSink.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close audit sink: {}", e.getMessage());
+        }
+    }
+
+    // Hot path: hash and enqueue, never touches the sink
+    public void record(long ruleId, Map<String, Object> inputs, boolean result) {
+        if (running) {
+            record(ruleId, inputsHash(inputs), result);
+        }
+    }
+
+    // For callers deciding many rules on the same inputs, which hash them once
+    public void record(long ruleId, long hash, boolean result) {
+        if (running) {
+            enqueue(ruleId, hash, result, null);
+        }
+    }
+
+    // One record for an evaluation of the whole rule set: the ids of the matching rules
+    public void recordRuleSet(Map<String, Object> inputs, Collection<Long> matchingRuleIds) {
+        if (running) {
+            long[] matched = matchingRuleIds.stream().mapToLong(Long::longValue).toArray();
+            enqueue(AuditRecord.ALL_RULES, inputsHash(inputs), matched.length > 0, matched);
+        }
+    }
+
+    private void enqueue(long ruleId, long hash, boolean result, long[] matched) {
+        long now = System.currentTimeMillis();
+        if (overflowPolicy == OverflowPolicy.SAMPLE && ring.size() >= ring.capacity() / 2
+                && sampleCounter.incrementAndGet() % sampleEvery != 0) {
+            sampledOut.increment();
+            return;
+        }
+        if (ring.offer(ruleId, hash, result, now, matched)) {
+            enqueued.increment();
+            return;
+        }
+        if (overflowPolicy != OverflowPolicy.BLOCK) {
+            dropped.increment();
+            return;
+        }
+        long blockedSince = System.nanoTime();
+        while (!ring.offer(ruleId, hash, result, now, matched)) {
+            if (!running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        blockedNanos.add(System.nanoTime() - blockedSince);
+        enqueued.increment();
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(enqueued.sum(), written.get(), dropped.sum(), sampledOut.sum(), spilled.get(),
+                failed.get(), batches.get(), ring.size(), ring.capacity(), lastLagMillis, maxLagMillis,
+                TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()));
+    }
+
+    private void drainLoop() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        long batchStarted = 0;
+        while (running || ring.size() > 0) {
+            boolean wasEmpty = batch.isEmpty();
+            int drained = ring.drainTo(batch, batchSize - batch.size());
+            if (wasEmpty && drained > 0) {
+                batchStarted = System.nanoTime();
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            boolean due = batch.size() >= batchSize
+                    || System.nanoTime() - batchStarted >= flushIntervalNanos
+                    || !running;
+            if (!due) {
+                LockSupport.parkNanos(Math.min(flushIntervalNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+                continue;
+            }
+            flush(batch);
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<AuditRecord> batch) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                sink.write(batch);
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+                long lag = System.currentTimeMillis() - batch.get(0).timestamp();
+                lastLagMillis = lag;
+                maxLagMillis = Math.max(maxLagMillis, lag);
+                break;
+            } catch (Exception e) {
+                if (attempt < retries) {
+                    LockSupport.parkNanos(RETRY_BACKOFF_NANOS << attempt);
+                    continue;
+                }
+                spill(batch, e);
+                break;
+            }
+        }
+        batch.clear();
+    }
+
+    private void spill(List<AuditRecord> batch, Exception cause) {
+        if (!spillFile.isBlank()) {
+            try {
+                if (spillSink == null) {
+                    spillSink = new FileAuditSink(spillFile);
+                }
+                spillSink.write(batch);
+                spilled.addAndGet(batch.size());
+                log.warn("Spilled {} audit records to {} after {} attempts: {}", batch.size(), spillFile,
+                        retries + 1, cause.getMessage());
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to spill audit records to {}: {}", spillFile, e.getMessage());
+            }
+        }
+        failed.addAndGet(batch.size());
+        log.error("Lost {} audit records: {}", batch.size(), cause.getMessage());
+    }
+
+    // Order-independent 64-bit hash of the evaluated data: the sum of one FNV-1a hash per entry
+    public static long inputsHash(Map<String, Object> inputs) {
+        if (inputs == null) {
+            return 0;
+        }
+        long hash = 0;
+        for (Map.Entry<String, Object> entry : inputs.entrySet()) {
+            long h = 0xcbf29ce484222325L;
+            h = fnv(h, entry.getKey());
+            h = (h ^ '=') * 0x100000001b3L;
+            h = fnv(h, String.valueOf(entry.getValue()));
+            hash += h;
+        }
+        return hash;
+    }
+
+    private static long fnv(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ruleengine.audit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+// Inserts each batch into decision_audit with one JDBC batch statement in one transaction,
+// so a batch costs a single round trip and a single commit.
+@Component
+@ConditionalOnProperty(name = "rules.audit.sink", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcAuditSink implements AuditSink {
+
+    private static final String INSERT =
+            "INSERT INTO decision_audit (rule_id, inputs_hash, result, decided_at, matched_rule_ids) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcAuditSink(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void write(List<AuditRecord> batch) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, record) -> {
+                    statement.setLong(1, record.ruleId());
+                    statement.setLong(2, record.inputsHash());
+                    statement.setBoolean(3, record.result());
+                    statement.setTimestamp(4, new Timestamp(record.timestamp()));
+                    statement.setString(5, record.matchedRuleIdsText());
+                }));
+    }
+}
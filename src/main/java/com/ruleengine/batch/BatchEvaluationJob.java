@@ -0,0 +1,88 @@
+package com.ruleengine.batch;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Rule;
+import com.ruleengine.repository.RuleRepository;
+import com.ruleengine.service.RuleCostPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Offline evaluation of every stored rule against a CSV export. Only active when
+// batch.input is set, e.g.
+//   java -jar app.jar --spring.main.web-application-type=none \
+//        --batch.input=users.csv --batch.output=matches.csv
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "batch.input")
+public class BatchEvaluationJob implements ApplicationRunner {
+
+    private final RuleRepository ruleRepository;
+    private final RuleCompiler ruleCompiler;
+    private final RuleCostPolicy costPolicy;
+    private final String input;
+    private final String output;
+    private final String idColumn;
+    private final long chunkSize;
+    private final int parallelism;
+
+    public BatchEvaluationJob(RuleRepository ruleRepository,
+                              RuleCompiler ruleCompiler,
+                              RuleCostPolicy costPolicy,
+                              @Value("${batch.input}") String input,
+                              @Value("${batch.output:matches.csv}") String output,
+                              @Value("${batch.id-column:id}") String idColumn,
+                              @Value("${batch.chunk-size:67108864}") long chunkSize,
+                              @Value("${batch.parallelism:0}") int parallelism) {
+        this.ruleRepository = ruleRepository;
+        this.ruleCompiler = ruleCompiler;
+        this.costPolicy = costPolicy;
+        this.input = input;
+        this.output = output;
+        this.idColumn = idColumn;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<CompiledRule> rules = compile(ruleRepository.findAll());
+        if (rules.isEmpty()) {
+            throw new CustomException("No rules to evaluate");
+        }
+
+        log.info("Evaluating {} rules against {} with {} threads", rules.size(), input, parallelism);
+        CsvBatchEvaluator evaluator = new CsvBatchEvaluator(rules, idColumn, chunkSize, parallelism);
+        CsvBatchEvaluator.BatchResult result = evaluator.run(Path.of(input), Path.of(output));
+        log.info("Batch evaluation finished: {} rows, {} matches, {} errors, {} chunks in {} ms -> {}",
+                result.rows(), result.matches(), result.errors(), result.chunks(), result.elapsedMillis(), output);
+    }
+
+    // Like CompiledRuleCache, skips rules that cannot be compiled or are over the evaluation
+    // budget, so one bad stored rule does not fail the whole job
+    private List<CompiledRule> compile(List<Rule> stored) {
+        List<CompiledRule> rules = new ArrayList<>(stored.size());
+        for (Rule rule : stored) {
+            try {
+                costPolicy.checkBudget(rule);
+                rules.add(ruleCompiler.compile(rule));
+            } catch (RuntimeException | StackOverflowError e) {
+                log.warn("Skipping rule {} that cannot be compiled: {}", rule.getId(),
+                        e instanceof CustomException ? e.getMessage() : e.toString());
+            }
+        }
+        if (rules.size() < stored.size()) {
+            log.warn("Skipped {} of {} rules", stored.size() - rules.size(), stored.size());
+        }
+        return rules;
+    }
+}
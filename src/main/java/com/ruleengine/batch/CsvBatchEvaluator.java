@@ -0,0 +1,320 @@
+package com.ruleengine.batch;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.exception.CustomException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// Evaluates compiled rules against every row of a CSV file. The file is memory-mapped
+// in line-aligned chunks which are evaluated in parallel on a ForkJoinPool; only the
+// columns referenced by the rule set (plus the id column) are decoded. Output is streamed
+// in input order, so memory stays bounded by a few chunks regardless of the file size.
+// Fields follow RFC 4180 quoting, except that a quoted field may not contain a line break.
+public class CsvBatchEvaluator {
+
+    private final List<CompiledRule> rules;
+    private final String idColumn;
+    private final long chunkSize;
+    private final int parallelism;
+
+    public CsvBatchEvaluator(List<CompiledRule> rules, String idColumn, long chunkSize, int parallelism) {
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) {
+            throw new CustomException("Chunk size must be between 1 and " + Integer.MAX_VALUE + " bytes");
+        }
+        this.rules = rules;
+        this.idColumn = idColumn;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    public BatchResult run(Path input, Path output) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] headerBytes = readLine(channel, 0);
+            if (headerBytes == null) {
+                throw new CustomException("Input file is empty: " + input);
+            }
+
+            ColumnLayout layout = resolveColumns(decodeLine(headerBytes));
+            long dataStart = Math.min(headerBytes.length + 1L, size);
+            List<long[]> chunks = split(channel, dataStart, size);
+
+            LongAdder rows = new LongAdder();
+            LongAdder matches = new LongAdder();
+            LongAdder errors = new LongAdder();
+
+            // Chunks are evaluated in parallel but written in input order as soon as the oldest
+            // one completes; at most `window` chunk outputs are held in memory at any time
+            int window = Math.max(2, parallelism * 2);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+                out.write("rowId,ruleId\n".getBytes(StandardCharsets.UTF_8));
+                ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+                int next = 0;
+                while (next < chunks.size() || !pending.isEmpty()) {
+                    while (next < chunks.size() && pending.size() < window) {
+                        long[] range = chunks.get(next++);
+                        pending.add(pool.submit(() -> evaluateChunk(channel, range, layout, rows, matches, errors)));
+                    }
+                    out.write(await(pending.poll()));
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            return new BatchResult(rows.sum(), matches.sum(), errors.sum(), chunks.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private static byte[] await(Future<byte[]> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while evaluating input", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // Cuts [from, size) into ranges of roughly chunkSize bytes, each ending just after a newline
+    private List<long[]> split(FileChannel channel, long from, long size) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        long start = from;
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+            if (end < size) {
+                end = nextLineStart(channel, end, size);
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long pos = position;
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    private static byte[] readLine(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long pos = position;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) {
+                return line.size() == 0 ? null : line.toByteArray();
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    return line.toByteArray();
+                }
+                line.write(b);
+            }
+            pos += read;
+        }
+    }
+
+    // Splits on commas outside double quotes (RFC 4180); quoted fields may not span lines
+    private static String[] decodeLine(byte[] line) {
+        String text = new String(line, StandardCharsets.UTF_8);
+        if (text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        List<String> fields = new ArrayList<>();
+        boolean quoted = false;
+        int fieldStart = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ',';
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && (!quoted || i == text.length())) {
+                fields.add(unquote(text.substring(fieldStart, i).trim()));
+                fieldStart = i + 1;
+            }
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    private ColumnLayout resolveColumns(String[] header) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            positions.put(header[i], i);
+        }
+
+        Integer idIndex = positions.get(idColumn);
+        if (idIndex == null) {
+            throw new CustomException("Id column not found in input header: " + idColumn);
+        }
+
+        Set<String> referenced = new TreeSet<>();
+        for (CompiledRule rule : rules) {
+            referenced.addAll(rule.getAttributes());
+        }
+
+        String[] names = new String[header.length];
+        for (String attribute : referenced) {
+            Integer index = positions.get(attribute);
+            if (index == null) {
+                throw new CustomException("Attribute referenced by rules is missing from input: " + attribute);
+            }
+            names[index] = attribute;
+        }
+        return new ColumnLayout(idIndex, names, referenced.size());
+    }
+
+    private static Object parseCell(String cell) {
+        if (!cell.isEmpty() && isNumber(cell)) {
+            try {
+                return Double.valueOf(cell);
+            } catch (NumberFormatException e) {
+                return cell;
+            }
+        }
+        return cell;
+    }
+
+    private static boolean isNumber(String cell) {
+        boolean digit = false;
+        for (int i = 0; i < cell.length(); i++) {
+            char c = cell.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (!(c == '.' || (i == 0 && c == '-'))) {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1).replace("\"\"", "\"");
+        }
+        return value;
+    }
+
+    // Row ids are written back quoted when they would otherwise break the output format
+    private static String csvField(String value) {
+        if (value != null && (value.indexOf(',') >= 0 || value.indexOf('"') >= 0)) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    // Column index -> attribute name for the columns the rule set reads, null elsewhere
+    private record ColumnLayout(int idIndex, String[] attributeAt, int attributeCount) {
+    }
+
+    public record BatchResult(long rows, long matches, long errors, int chunks, long elapsedMillis) {
+    }
+
+    private byte[] evaluateChunk(FileChannel channel, long[] range, ColumnLayout layout,
+                                 LongAdder rows, LongAdder matches, LongAdder errors) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+        StringBuilder out = new StringBuilder();
+        Map<String, Object> row = new HashMap<>(layout.attributeCount() * 2);
+        byte[] scratch = new byte[256];
+        int limit = buffer.limit();
+        int lineStart = 0;
+        long rowCount = 0;
+        long matchCount = 0;
+        long errorCount = 0;
+
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+
+            if (contentEnd > lineStart) {
+                row.clear();
+                String rowId = null;
+                int column = 0;
+                int fieldStart = lineStart;
+                boolean quoted = false;
+                for (int i = lineStart; i <= contentEnd; i++) {
+                    byte b = i < contentEnd ? buffer.get(i) : (byte) ',';
+                    if (b == '"') {
+                        quoted = !quoted; // an escaped "" toggles twice
+                    } else if (b == ',' && (!quoted || i == contentEnd)) {
+                        boolean isId = column == layout.idIndex();
+                        String attribute = column < layout.attributeAt().length ? layout.attributeAt()[column] : null;
+                        if (isId || attribute != null) {
+                            int length = i - fieldStart;
+                            if (scratch.length < length) {
+                                scratch = new byte[length * 2];
+                            }
+                            buffer.get(fieldStart, scratch, 0, length);
+                            String cell = unquote(new String(scratch, 0, length, StandardCharsets.UTF_8).trim());
+                            if (isId) rowId = cell;
+                            if (attribute != null) row.put(attribute, parseCell(cell));
+                        }
+                        column++;
+                        fieldStart = i + 1;
+                    }
+                }
+
+                rowCount++;
+                for (CompiledRule rule : rules) {
+                    try {
+                        if (rule.evaluate(row)) {
+                            out.append(csvField(rowId)).append(',').append(rule.getRuleId()).append('\n');
+                            matchCount++;
+                        }
+                    } catch (CustomException e) {
+                        errorCount++;
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        rows.add(rowCount);
+        matches.add(matchCount);
+        errors.add(errorCount);
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,137 @@
+package com.ruleengine.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Deletes node rows that no rule can reach any more, e.g. the previous tree of a modified rule.
+//
+// One recursive query collects every node reachable from a rule's root (nodes shared by
+// several trees are visited once); everything else is a candidate. Candidates are then
+// deleted in small auto-committed batches, each of which re-checks that the node is neither
+// a rule root nor still referenced by another node. Orphaned subtrees are therefore removed
+// top-down, a node that was re-attached in the meantime is never removed, and no statement
+// holds locks for long. Children are inserted before their parent, so going by descending id
+// usually clears a whole subtree in one pass.
+@Slf4j
+@Component
+public class NodeCompactionJob {
+
+    private static final String UNREACHABLE_NODES = """
+            WITH RECURSIVE live(id) AS (
+                SELECT r.root_node_id FROM rules r WHERE r.root_node_id IS NOT NULL
+                UNION
+                SELECT c.id FROM live l
+                JOIN node n ON n.id = l.id
+                JOIN node c ON c.id = n.left_node_id OR c.id = n.right_node_id
+            )
+            SELECT n.id FROM node n
+            WHERE NOT EXISTS (SELECT 1 FROM live l WHERE l.id = n.id)
+            ORDER BY n.id DESC
+            """;
+
+    private static final String DELETE_DETACHED = """
+            DELETE FROM node
+            WHERE id IN (:ids)
+              AND NOT EXISTS (SELECT 1 FROM rules r WHERE r.root_node_id = node.id)
+              AND NOT EXISTS (SELECT 1 FROM node p WHERE p.left_node_id = node.id OR p.right_node_id = node.id)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final ReentrantLock running = new ReentrantLock();
+
+    private volatile CompactionResult lastResult;
+
+    public record CompactionResult(int candidates, int reclaimed, int batches, int passes, long elapsedMillis) {
+    }
+
+    public NodeCompactionJob(NamedParameterJdbcTemplate jdbcTemplate,
+                             @Value("${rules.compaction.batch-size:500}") int batchSize,
+                             @Value("${rules.compaction.batch-pause-ms:10}") long pauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = pauseMillis;
+    }
+
+    public CompactionResult getLastResult() {
+        return lastResult;
+    }
+
+    @Scheduled(initialDelayString = "${rules.compaction.initial-delay:PT5M}",
+            fixedDelayString = "${rules.compaction.interval:PT1H}")
+    public void scheduledCompaction() {
+        compact();
+    }
+
+    // Returns null when a compaction is already running
+    public CompactionResult compact() {
+        if (!running.tryLock()) {
+            return null;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<Long> candidates = jdbcTemplate.queryForList(UNREACHABLE_NODES, new MapSqlParameterSource(), Long.class);
+
+            int reclaimed = 0;
+            int batches = 0;
+            int passes = 0;
+            List<Long> remaining = new ArrayList<>(candidates);
+            while (!remaining.isEmpty()) {
+                passes++;
+                int deletedThisPass = 0;
+                for (int from = 0; from < remaining.size(); from += batchSize) {
+                    List<Long> batch = remaining.subList(from, Math.min(from + batchSize, remaining.size()));
+                    deletedThisPass += jdbcTemplate.update(DELETE_DETACHED, new MapSqlParameterSource("ids", batch));
+                    batches++;
+                    pause();
+                }
+                if (deletedThisPass == 0) {
+                    break; // the rest is referenced again
+                }
+                reclaimed += deletedThisPass;
+                remaining = stillPresent(remaining);
+            }
+
+            CompactionResult result = new CompactionResult(candidates.size(), reclaimed, batches, passes,
+                    System.currentTimeMillis() - start);
+            lastResult = result;
+            if (result.reclaimed() > 0 || result.candidates() > 0) {
+                log.info("Node compaction reclaimed {} of {} unreachable nodes in {} batches ({} ms)",
+                        result.reclaimed(), result.candidates(), result.batches(), result.elapsedMillis());
+            }
+            return result;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private List<Long> stillPresent(List<Long> ids) {
+        List<Long> present = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            present.addAll(jdbcTemplate.queryForList("SELECT id FROM node WHERE id IN (:ids) ORDER BY id DESC",
+                    new MapSqlParameterSource("ids", batch), Long.class));
+        }
+        return present;
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
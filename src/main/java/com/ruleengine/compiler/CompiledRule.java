@@ -0,0 +1,126 @@
+package com.ruleengine.compiler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Flattened, postfix form of a rule AST. Each code entry is either an index into
+// the condition table or one of the operator opcodes below.
+@Getter
+public final class CompiledRule {
+
+    public static final int OP_AND = -1;
+    public static final int OP_OR = -2;
+    public static final int OP_TRUE = -3; // missing child, evaluates to true like RuleService
+
+    private final Long ruleId;
+    private final int[] code;
+    private final Condition[] conditions;
+    private final int maxStack;
+    private final Set<String> attributes;
+    // Code slices of stored subtrees, for RuleCompiler.recompile: sorted node ids and for each
+    // {codeStart, codeEnd, firstCondition}. Empty for rules restored from a snapshot.
+    private final long[] subtreeIds;
+    private final int[] subtreeRanges;
+    // Cell limit of the TruthTable; 0 disables it
+    private final int maxTableCells;
+    // Built on the first evaluation rather than at compile time, so loading many rules does not
+    // pay for tables of rules that are rarely evaluated; empty when the rule does not fit. Like
+    // String.hashCode, racing threads may each build it, with the same result.
+    @Getter(AccessLevel.NONE)
+    private volatile Optional<TruthTable> truthTable;
+
+    public CompiledRule(Long ruleId, int[] code, Condition[] conditions, int maxTableCells) {
+        this(ruleId, code, conditions, new long[0], new int[0], maxTableCells);
+    }
+
+    public CompiledRule(Long ruleId, int[] code, Condition[] conditions, long[] subtreeIds, int[] subtreeRanges,
+                        int maxTableCells) {
+        this.ruleId = ruleId;
+        this.code = code;
+        this.conditions = conditions;
+        this.maxStack = computeMaxStack(code);
+        this.subtreeIds = subtreeIds;
+        this.subtreeRanges = subtreeRanges;
+        this.maxTableCells = maxTableCells;
+        this.truthTable = maxTableCells > 0 ? null : Optional.empty();
+
+        Set<String> attrs = new LinkedHashSet<>();
+        for (Condition condition : conditions) {
+            attrs.add(condition.getAttribute());
+        }
+        this.attributes = Collections.unmodifiableSet(attrs);
+    }
+
+    public boolean evaluate(Map<String, Object> data) {
+        TruthTable table = getTruthTable();
+        if (table != null) {
+            int result = table.lookup(data);
+            if (result >= 0) {
+                return result == 1;
+            }
+        }
+        return evaluateProgram(data);
+    }
+
+    // Null when the rule has no table; builds it on first use
+    public TruthTable getTruthTable() {
+        Optional<TruthTable> table = truthTable;
+        if (table == null) {
+            table = Optional.ofNullable(TruthTable.build(this, maxTableCells));
+            truthTable = table;
+        }
+        return table.orElse(null);
+    }
+
+    // Runs the postfix program, bypassing the truth table
+    boolean evaluateProgram(Map<String, Object> data) {
+        boolean[] stack = new boolean[maxStack];
+        int top = 0;
+        for (int op : code) {
+            if (op >= 0) {
+                Condition condition = conditions[op];
+                stack[top++] = condition.test(data.get(condition.getAttribute()));
+            } else if (op == OP_AND) {
+                top--;
+                stack[top - 1] = stack[top - 1] & stack[top];
+            } else if (op == OP_OR) {
+                top--;
+                stack[top - 1] = stack[top - 1] | stack[top];
+            } else {
+                stack[top++] = true;
+            }
+        }
+        return stack[0];
+    }
+
+    // Index into subtreeRanges / 3 of the given stored node, or -1
+    int subtree(Long nodeId) {
+        if (nodeId == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(subtreeIds, nodeId);
+        return index >= 0 ? index : -1;
+    }
+
+    // Rough evaluation cost, used for load balancing
+    public int cost() {
+        return code.length;
+    }
+
+    private static int computeMaxStack(int[] code) {
+        int depth = 0;
+        int max = 0;
+        for (int op : code) {
+            depth += (op == OP_AND || op == OP_OR) ? -1 : 1;
+            max = Math.max(max, depth);
+        }
+        return Math.max(max, 1);
+    }
+}
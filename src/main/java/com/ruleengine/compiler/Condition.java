@@ -0,0 +1,210 @@
+package com.ruleengine.compiler;
+
+import com.ruleengine.exception.CustomException;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A single parsed operand such as "age > 30", "department = 'Sales'" or
+// "department IN ('Sales', 'IT')". Parsing happens once at compile time so evaluation
+// never touches the regex. IN lists are backed by a hash set for strings and a sorted
+// array for numbers.
+@Getter
+public final class Condition {
+
+    private static final String VALUE = "'[^']*'|\\d+(?:\\.\\d+)?";
+
+    public static final Pattern PATTERN = Pattern.compile(
+            "(\\w+)\\s*(?:([<>=])\\s*(" + VALUE + ")"
+                    + "|(NOT\\s+IN|IN)\\s*\\(\\s*((?:" + VALUE + ")(?:\\s*,\\s*(?:" + VALUE + "))*)\\s*\\))");
+
+    private static final Pattern LIST_VALUE = Pattern.compile(VALUE);
+    private static final Pattern NUMBER = Pattern.compile("\\d+(\\.\\d+)?");
+
+    static final double EPSILON = 0.0001;
+
+    public enum Operator {
+        LESS("<"), GREATER(">"), EQUALS("="), IN("IN"), NOT_IN("NOT IN");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        public boolean isSet() {
+            return this == IN || this == NOT_IN;
+        }
+    }
+
+    private final String text;
+    private final String attribute;
+    private final Operator operator;
+    private final String literal;       // value with quotes removed; canonical value list for IN
+    private final double numericValue;  // NaN when the literal is not a number (or for IN)
+    private final List<String> values;  // unquoted literals, one for comparisons
+    private final Set<String> stringSet;
+    private final double[] sortedNumbers; // null when a listed value is not a number
+
+    private Condition(String text, String attribute, Operator operator, List<String> values) {
+        this.text = text;
+        this.attribute = attribute;
+        this.operator = operator;
+        this.values = List.copyOf(values);
+
+        if (operator.isSet()) {
+            this.literal = canonicalList(values);
+            this.numericValue = Double.NaN;
+            this.stringSet = Set.copyOf(values);
+            double[] numbers = values.stream().mapToDouble(Condition::parseNumber).sorted().toArray();
+            this.sortedNumbers = Arrays.stream(numbers).anyMatch(Double::isNaN) ? null : numbers;
+        } else {
+            this.literal = values.get(0);
+            this.numericValue = parseNumber(literal);
+            this.stringSet = null;
+            this.sortedNumbers = null;
+        }
+    }
+
+    public static Condition parse(String condition) {
+        String text = condition.trim();
+        Matcher matcher = PATTERN.matcher(text);
+        if (!matcher.matches()) {
+            throw new CustomException("Invalid condition format: " + condition);
+        }
+
+        String attribute = matcher.group(1);
+        if (matcher.group(2) != null) {
+            Operator operator = switch (matcher.group(2).charAt(0)) {
+                case '<' -> Operator.LESS;
+                case '>' -> Operator.GREATER;
+                default -> Operator.EQUALS;
+            };
+            return new Condition(text, attribute, operator, List.of(matcher.group(3).replace("'", "")));
+        }
+
+        Operator operator = matcher.group(4).startsWith("NOT") ? Operator.NOT_IN : Operator.IN;
+        List<String> values = new ArrayList<>();
+        Matcher value = LIST_VALUE.matcher(matcher.group(5));
+        while (value.find()) {
+            values.add(value.group().replace("'", ""));
+        }
+        return new Condition(text, attribute, operator, values);
+    }
+
+    // Rebuilds a condition from its stored parts
+    public static Condition of(String attribute, Operator operator, String literal) {
+        String value = operator.isSet() ? "(" + literal + ")" : quote(literal);
+        return parse(attribute + " " + operator.symbol() + " " + value);
+    }
+
+    // Single set lookup equivalent to "attribute = v1 OR attribute = v2 OR ..."
+    public static Condition in(String attribute, Collection<String> values) {
+        return of(attribute, Operator.IN, canonicalList(new ArrayList<>(new LinkedHashSet<>(values))));
+    }
+
+    public boolean isNumeric() {
+        return !Double.isNaN(numericValue);
+    }
+
+    // Same semantics as the "=" / "<" / ">" comparisons in RuleService
+    public boolean test(Object userValue) {
+        if (operator.isSet()) {
+            return testMembership(userValue) != (operator == Operator.NOT_IN);
+        }
+        return test(attribute, operator, literal, numericValue, userValue);
+    }
+
+    // Shared with OffHeapRuleStore, which evaluates comparisons without materializing them
+    static boolean test(String attribute, Operator operator, String literal, double numericValue, Object userValue) {
+        if (userValue == null) {
+            throw new CustomException("Attribute not found in user data: " + attribute);
+        }
+
+        if (userValue instanceof String) {
+            if (operator != Operator.EQUALS) {
+                throw new CustomException("Invalid operator for string comparison: " + operator.symbol());
+            }
+            return userValue.equals(literal);
+        }
+
+        if (userValue instanceof Number) {
+            if (Double.isNaN(numericValue)) {
+                throw new CustomException("Invalid number format: " + literal);
+            }
+            double userNum = ((Number) userValue).doubleValue();
+            return switch (operator) {
+                case GREATER -> userNum > numericValue;
+                case LESS -> userNum < numericValue;
+                default -> Math.abs(userNum - numericValue) < EPSILON;
+            };
+        }
+
+        throw new CustomException("Unsupported data type for attribute: " + attribute);
+    }
+
+    private boolean testMembership(Object userValue) {
+        if (userValue == null) {
+            throw new CustomException("Attribute not found in user data: " + attribute);
+        }
+
+        if (userValue instanceof String) {
+            return stringSet.contains(userValue);
+        }
+
+        if (userValue instanceof Number) {
+            if (sortedNumbers == null) {
+                throw new CustomException("Invalid number format: " + literal);
+            }
+            return containsWithinEpsilon(sortedNumbers, ((Number) userValue).doubleValue());
+        }
+
+        throw new CustomException("Unsupported data type for attribute: " + attribute);
+    }
+
+    // Binary search for any element c with |x - c| < EPSILON, matching numeric "=" semantics
+    private static boolean containsWithinEpsilon(double[] sorted, double x) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= x - EPSILON) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < sorted.length && sorted[low] < x + EPSILON;
+    }
+
+    private static String canonicalList(List<String> values) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (String value : values) {
+            joiner.add(quote(value));
+        }
+        return joiner.toString();
+    }
+
+    private static String quote(String value) {
+        return NUMBER.matcher(value).matches() ? value : "'" + value + "'";
+    }
+
+    private static double parseNumber(String literal) {
+        try {
+            return Double.parseDouble(literal);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ruleengine.compiler;
+
+import com.ruleengine.model.Node;
+import com.ruleengine.model.RuleCost;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Weights used to score rules and to charge the evaluation budget. A node's weight is the
+// relative work of evaluating it: operators and comparisons are one step, IN / NOT IN lists
+// cost a hash or binary search lookup on top. Missing children are free.
+public final class CostModel {
+
+    public static final int OPERATOR_WEIGHT = 1;
+    public static final int COMPARISON_WEIGHT = 1;
+    public static final int SET_WEIGHT = 2;
+
+    private CostModel() {
+    }
+
+    public static int weight(Condition condition) {
+        return condition.getOperator().isSet() ? SET_WEIGHT : COMPARISON_WEIGHT;
+    }
+
+    public static RuleCost measure(Node root) {
+        return measure(root, Integer.MAX_VALUE);
+    }
+
+    // Walks the tree with an explicit stack, so arbitrarily deep trees are measured safely.
+    // Stops as soon as the score exceeds limit, so oversized (or cyclic) stored trees are not
+    // walked in full; the result is then a lower bound whose score is above the limit.
+    public static RuleCost measure(Node root, int limit) {
+        if (root == null) {
+            return new RuleCost(0, 0, 0);
+        }
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        nodes.push(root);
+        depths.push(1);
+
+        int score = 0;
+        int nodeCount = 0;
+        int maxDepth = 0;
+        while (!nodes.isEmpty() && score <= limit) {
+            Node node = nodes.pop();
+            int depth = depths.pop();
+            nodeCount++;
+            maxDepth = Math.max(maxDepth, depth);
+            if ("operand".equals(node.getType())) {
+                score += weight(Condition.parse(node.getValue()));
+                continue;
+            }
+            score += OPERATOR_WEIGHT;
+            if (node.getLeft() != null) {
+                nodes.push(node.getLeft());
+                depths.push(depth + 1);
+            }
+            if (node.getRight() != null) {
+                nodes.push(node.getRight());
+                depths.push(depth + 1);
+            }
+        }
+        return new RuleCost(score, maxDepth, nodeCount);
+    }
+}
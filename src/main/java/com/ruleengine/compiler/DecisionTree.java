@@ -0,0 +1,159 @@
+package com.ruleengine.compiler;
+
+import com.ruleengine.exception.CustomException;
+import lombok.Getter;
+
+import java.io.*;
+import java.util.*;
+
+// Compiled form of an ordered rule set: a decision diagram whose inner nodes each run one
+// distinct condition and whose leaves hold the matching rule ids. A condition shared by
+// several rules is tested at most once per evaluation, and conditions implied by earlier
+// outcomes (age > 40 after age > 50 was true) are not tested at all.
+//
+// Nodes are stored in flat arrays; node i is a leaf when test[i] < 0, in which case
+// whenTrue[i] indexes the leaf outcomes.
+@Getter
+public final class DecisionTree {
+
+    private static final int MAGIC = 0x44545245; // "DTRE"
+    private static final int VERSION = 1;
+
+    private final Condition[] tests;
+    private final int[] test;
+    private final int[] whenTrue;
+    private final int[] whenFalse;
+    private final long[][] outcomes;
+    private final int root;
+    private final int sequentialTests; // conditions evaluated when running the rules one by one
+    private final Set<String> attributes;
+
+    DecisionTree(Condition[] tests, int[] test, int[] whenTrue, int[] whenFalse,
+                 long[][] outcomes, int root, int sequentialTests) {
+        this.tests = tests;
+        this.test = test;
+        this.whenTrue = whenTrue;
+        this.whenFalse = whenFalse;
+        this.outcomes = outcomes;
+        this.root = root;
+        this.sequentialTests = sequentialTests;
+
+        Set<String> attrs = new LinkedHashSet<>();
+        for (Condition condition : tests) {
+            attrs.add(condition.getAttribute());
+        }
+        this.attributes = Collections.unmodifiableSet(attrs);
+    }
+
+    // Ids of the matching rules, in member order
+    public List<Long> evaluate(Map<String, Object> data) {
+        // A path may skip a condition, so missing attributes are reported up front
+        // exactly as rule-by-rule evaluation would
+        for (String attribute : attributes) {
+            if (data.get(attribute) == null) {
+                throw new CustomException("Attribute not found in user data: " + attribute);
+            }
+        }
+
+        int node = root;
+        while (test[node] >= 0) {
+            Condition condition = tests[test[node]];
+            node = condition.test(data.get(condition.getAttribute())) ? whenTrue[node] : whenFalse[node];
+        }
+        long[] matched = outcomes[whenTrue[node]];
+        List<Long> ids = new ArrayList<>(matched.length);
+        for (long id : matched) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    public int nodeCount() {
+        return test.length;
+    }
+
+    // Average number of conditions tested per evaluation, assuming each outcome is equally likely
+    public double expectedTests() {
+        double[] expected = new double[test.length];
+        // Children always have lower indexes than their parents
+        for (int i = 0; i < test.length; i++) {
+            expected[i] = test[i] < 0 ? 0 : 1 + (expected[whenTrue[i]] + expected[whenFalse[i]]) / 2;
+        }
+        return expected[root];
+    }
+
+    public int maxDepth() {
+        int[] depth = new int[test.length];
+        for (int i = 0; i < test.length; i++) {
+            depth[i] = test[i] < 0 ? 0 : 1 + Math.max(depth[whenTrue[i]], depth[whenFalse[i]]);
+        }
+        return depth[root];
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sequentialTests);
+            out.writeInt(tests.length);
+            for (Condition condition : tests) {
+                out.writeUTF(condition.getAttribute());
+                out.writeByte(condition.getOperator().ordinal());
+                out.writeUTF(condition.getLiteral());
+            }
+            out.writeInt(outcomes.length);
+            for (long[] ids : outcomes) {
+                out.writeInt(ids.length);
+                for (long id : ids) {
+                    out.writeLong(id);
+                }
+            }
+            out.writeInt(test.length);
+            for (int i = 0; i < test.length; i++) {
+                out.writeInt(test[i]);
+                out.writeInt(whenTrue[i]);
+                out.writeInt(whenFalse[i]);
+            }
+            out.writeInt(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static DecisionTree fromBytes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new CustomException("Not a compiled decision tree");
+            }
+            int sequentialTests = in.readInt();
+            Condition.Operator[] operators = Condition.Operator.values();
+            Condition[] tests = new Condition[in.readInt()];
+            for (int i = 0; i < tests.length; i++) {
+                String attribute = in.readUTF();
+                Condition.Operator operator = operators[in.readByte()];
+                tests[i] = Condition.of(attribute, operator, in.readUTF());
+            }
+            long[][] outcomes = new long[in.readInt()][];
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new long[in.readInt()];
+                for (int j = 0; j < outcomes[i].length; j++) {
+                    outcomes[i][j] = in.readLong();
+                }
+            }
+            int nodeCount = in.readInt();
+            int[] test = new int[nodeCount];
+            int[] whenTrue = new int[nodeCount];
+            int[] whenFalse = new int[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                test[i] = in.readInt();
+                whenTrue[i] = in.readInt();
+                whenFalse[i] = in.readInt();
+            }
+            return new DecisionTree(tests, test, whenTrue, whenFalse, outcomes, in.readInt(), sequentialTests);
+        } catch (IOException e) {
+            throw new CustomException("Corrupt decision tree: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package com.ruleengine.compiler;
+
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Node;
+import com.ruleengine.model.OrderedRuleSet;
+import com.ruleengine.model.Rule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// Builds a DecisionTree for an ordered list of rules.
+//
+// Each rule is turned into a boolean formula over the set's distinct conditions. The tree is
+// grown greedily: at every node the condition whose two outcomes settle the most remaining
+// condition occurrences is tested next, counting conditions implied through shared
+// attributes (age > 50 settles age > 40, age < 30 and age = 20). For FIRST_MATCH only
+// conditions of the highest-priority undecided rule are candidates, since that rule has to
+// be decided before any later one can win. Identical sub-problems are built once, which
+// turns the tree into a DAG.
+//
+// Sub-problems that differ only in earlier outcomes are distinct states even when they end in
+// the same node, so besides the tree size the search also limits the states it visits, the
+// tests on one path and the nesting of the rule formulas. A set over any limit is evaluated
+// rule by rule instead.
+@Component
+public class DecisionTreeCompiler {
+
+    private static final int DEFAULT_MAX_STATES = 200_000;
+    private static final int MAX_PATH_TESTS = 1024;
+    private static final int MAX_FORMULA_DEPTH = 1024;
+    // Marks the end of an operator's children on the toExpr stack
+    private static final Node OPERATOR_END = new Node();
+
+    private final int maxNodes;
+    private final int maxStates;
+
+    public DecisionTreeCompiler(int maxNodes) {
+        this(maxNodes, DEFAULT_MAX_STATES);
+    }
+
+    @Autowired
+    public DecisionTreeCompiler(@Value("${rules.sets.max-tree-nodes:50000}") int maxNodes,
+                                @Value("${rules.sets.max-tree-states:200000}") int maxStates) {
+        this.maxNodes = maxNodes;
+        this.maxStates = maxStates;
+    }
+
+    // Rules in priority order; throws CustomException when the tree would exceed one of the limits
+    public DecisionTree compile(List<Rule> rules, OrderedRuleSet.Mode mode) {
+        return new Build(mode).run(rules);
+    }
+
+    // Formula over condition indexes. Constants and leaves are shared instances.
+    private static final class Expr {
+        static final int TRUE = -1;
+        static final int FALSE = -2;
+        static final int AND = -3;
+        static final int OR = -4;
+
+        static final Expr TRUE_EXPR = new Expr(TRUE, List.of());
+        static final Expr FALSE_EXPR = new Expr(FALSE, List.of());
+
+        final int kind; // condition index when >= 0
+        final List<Expr> children;
+        final int depth; // AND / OR levels, 0 for leaves and constants
+        private String key;
+
+        Expr(int kind, List<Expr> children) {
+            this.kind = kind;
+            this.children = children;
+            int below = -1;
+            for (Expr child : children) {
+                below = Math.max(below, child.depth);
+            }
+            this.depth = below + 1;
+        }
+
+        static Expr constant(boolean value) {
+            return value ? TRUE_EXPR : FALSE_EXPR;
+        }
+
+        // AND / OR with constant folding and flattening
+        static Expr combine(int kind, List<Expr> parts) {
+            Expr absorbing = kind == AND ? FALSE_EXPR : TRUE_EXPR;
+            List<Expr> kept = new ArrayList<>(parts.size());
+            for (Expr part : parts) {
+                if (part == absorbing) {
+                    return absorbing;
+                }
+                if (part.kind == kind) {
+                    kept.addAll(part.children);
+                } else if (part.kind >= 0 || part.kind == AND || part.kind == OR) {
+                    kept.add(part);
+                }
+            }
+            if (kept.isEmpty()) {
+                return kind == AND ? TRUE_EXPR : FALSE_EXPR;
+            }
+            return kept.size() == 1 ? kept.get(0) : new Expr(kind, List.copyOf(kept));
+        }
+
+        boolean isConstant() {
+            return kind == TRUE || kind == FALSE;
+        }
+
+        void collect(Collection<Integer> into) {
+            if (kind >= 0) {
+                into.add(kind);
+            } else {
+                for (Expr child : children) {
+                    child.collect(into);
+                }
+            }
+        }
+
+        String key() {
+            if (key == null) {
+                if (kind >= 0 || isConstant()) {
+                    key = Integer.toString(kind);
+                } else {
+                    StringJoiner joiner = new StringJoiner(",", kind == AND ? "&(" : "|(", ")");
+                    for (Expr child : children) {
+                        joiner.add(child.key());
+                    }
+                    key = joiner.toString();
+                }
+            }
+            return key;
+        }
+    }
+
+    // A member rule that is not decided yet on the current path
+    private record Pending(int position, Expr expr) {
+    }
+
+    private record Fact(int condition, boolean outcome) {
+    }
+
+    private final class Build {
+
+        private final OrderedRuleSet.Mode mode;
+        private final List<Condition> conditions = new ArrayList<>();
+        private final Map<String, Integer> conditionIds = new HashMap<>();
+        private final Map<String, List<Integer>> byAttribute = new HashMap<>();
+        private final List<Expr> leaves = new ArrayList<>();
+        private long[] ruleIds;
+
+        private final List<Integer> test = new ArrayList<>();
+        private final List<Integer> whenTrue = new ArrayList<>();
+        private final List<Integer> whenFalse = new ArrayList<>();
+        private final List<long[]> outcomes = new ArrayList<>();
+        private final Map<List<Long>, Integer> leafNodes = new HashMap<>();
+        private final Map<List<Integer>, Integer> innerNodes = new HashMap<>();
+        private final Map<String, Integer> solved = new HashMap<>();
+        private int visited;
+
+        Build(OrderedRuleSet.Mode mode) {
+            this.mode = mode;
+        }
+
+        DecisionTree run(List<Rule> rules) {
+            ruleIds = new long[rules.size()];
+            List<Pending> live = new ArrayList<>(rules.size());
+            int sequentialTests = 0;
+            for (int i = 0; i < rules.size(); i++) {
+                ruleIds[i] = rules.get(i).getId();
+                Expr expr = toExpr(rules.get(i).getRootNode());
+                List<Integer> used = new ArrayList<>();
+                expr.collect(used);
+                sequentialTests += used.size();
+                live.add(new Pending(i, expr));
+            }
+
+            int root = build(live, new TreeSet<>(), new ArrayList<>());
+            return new DecisionTree(
+                    conditions.toArray(new Condition[0]),
+                    test.stream().mapToInt(Integer::intValue).toArray(),
+                    whenTrue.stream().mapToInt(Integer::intValue).toArray(),
+                    whenFalse.stream().mapToInt(Integer::intValue).toArray(),
+                    outcomes.toArray(new long[0][]),
+                    root,
+                    sequentialTests);
+        }
+
+        // Post-order walk with explicit stacks, so the rule's depth is not bounded by the call stack
+        private Expr toExpr(Node root) {
+            List<Node> pending = new ArrayList<>(); // may hold null children
+            Deque<Node> operators = new ArrayDeque<>();
+            Deque<Expr> values = new ArrayDeque<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.remove(pending.size() - 1);
+                if (node == null) {
+                    values.push(Expr.TRUE_EXPR); // a missing child counts as true, as in CompiledRule
+                } else if (node == OPERATOR_END) {
+                    Node operator = operators.pop();
+                    Expr right = values.pop();
+                    Expr left = values.pop();
+                    Expr combined = Expr.combine(kind(operator), List.of(left, right));
+                    if (combined.depth > MAX_FORMULA_DEPTH) {
+                        throw new CustomException("Rule nests AND / OR more than " + MAX_FORMULA_DEPTH + " levels deep");
+                    }
+                    values.push(combined);
+                } else if ("operand".equals(node.getType())) {
+                    values.push(leaf(Condition.parse(node.getValue())));
+                } else {
+                    kind(node);
+                    operators.push(node);
+                    pending.add(OPERATOR_END);
+                    pending.add(node.getRight());
+                    pending.add(node.getLeft());
+                }
+            }
+            return values.pop();
+        }
+
+        private int kind(Node operator) {
+            return switch (operator.getValue()) {
+                case "AND" -> Expr.AND;
+                case "OR" -> Expr.OR;
+                default -> throw new CustomException("Unknown operator: " + operator.getValue());
+            };
+        }
+
+        private Expr leaf(Condition condition) {
+            String key = condition.getAttribute() + " " + condition.getOperator().symbol() + " " + condition.getLiteral();
+            Integer id = conditionIds.get(key);
+            if (id == null) {
+                id = conditions.size();
+                conditions.add(condition);
+                conditionIds.put(key, id);
+                byAttribute.computeIfAbsent(condition.getAttribute(), a -> new ArrayList<>()).add(id);
+                leaves.add(new Expr(id, List.of()));
+            }
+            return leaves.get(id);
+        }
+
+        // live: undecided rules in priority order; matched: positions already known to match
+        private int build(List<Pending> live, SortedSet<Integer> matched, List<Fact> facts) {
+            if (++visited > maxStates) {
+                throw new CustomException("Decision tree search exceeds " + maxStates + " states");
+            }
+            if (facts.size() > MAX_PATH_TESTS) {
+                throw new CustomException("Decision tree path exceeds " + MAX_PATH_TESTS + " tests");
+            }
+            List<Pending> open = new ArrayList<>(live.size());
+            SortedSet<Integer> hits = new TreeSet<>(matched);
+            for (Pending pending : live) {
+                if (pending.expr() == Expr.FALSE_EXPR) {
+                    continue;
+                }
+                if (pending.expr() == Expr.TRUE_EXPR) {
+                    if (mode == OrderedRuleSet.Mode.FIRST_MATCH && open.isEmpty()) {
+                        return leafNode(List.of(ruleIds[pending.position()]));
+                    }
+                    if (mode == OrderedRuleSet.Mode.ALL_MATCH) {
+                        hits.add(pending.position());
+                        continue;
+                    }
+                    open.add(pending);
+                    break; // lower-priority rules can no longer win
+                }
+                open.add(pending);
+            }
+            if (open.isEmpty()) {
+                List<Long> ids = new ArrayList<>(hits.size());
+                for (int position : hits) {
+                    ids.add(ruleIds[position]);
+                }
+                return leafNode(ids);
+            }
+
+            String key = stateKey(open, hits, facts);
+            Integer known = solved.get(key);
+            if (known != null) {
+                return known;
+            }
+
+            int chosen = choose(open);
+            Fact yes = new Fact(chosen, true);
+            Fact no = new Fact(chosen, false);
+            int onTrue = build(assume(open, yes), hits, with(facts, yes));
+            int onFalse = build(assume(open, no), hits, with(facts, no));
+            int node = innerNode(chosen, onTrue, onFalse);
+            solved.put(key, node);
+            return node;
+        }
+
+        // Condition settling the most remaining occurrences over both outcomes
+        private int choose(List<Pending> open) {
+            Map<Integer, Integer> occurrences = new LinkedHashMap<>();
+            for (Pending pending : open) {
+                List<Integer> used = new ArrayList<>();
+                pending.expr().collect(used);
+                for (int id : used) {
+                    occurrences.merge(id, 1, Integer::sum);
+                }
+            }
+
+            Set<Integer> candidates = new LinkedHashSet<>();
+            if (mode == OrderedRuleSet.Mode.FIRST_MATCH) {
+                open.get(0).expr().collect(candidates);
+            } else {
+                candidates.addAll(occurrences.keySet());
+            }
+
+            int best = -1;
+            int bestScore = -1;
+            for (int candidate : candidates) {
+                Condition fact = conditions.get(candidate);
+                int score = 0;
+                for (int other : byAttribute.get(fact.getAttribute())) {
+                    Integer count = occurrences.get(other);
+                    if (count == null) {
+                        continue;
+                    }
+                    Condition condition = conditions.get(other);
+                    if (other == candidate || implied(condition, fact, true) != null) {
+                        score += count;
+                    }
+                    if (other == candidate || implied(condition, fact, false) != null) {
+                        score += count;
+                    }
+                }
+                if (score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        private List<Pending> assume(List<Pending> open, Fact fact) {
+            List<Pending> next = new ArrayList<>(open.size());
+            for (Pending pending : open) {
+                next.add(new Pending(pending.position(), substitute(pending.expr(), fact)));
+            }
+            return next;
+        }
+
+        private Expr substitute(Expr expr, Fact fact) {
+            if (expr.kind >= 0) {
+                Boolean value = expr.kind == fact.condition() ? Boolean.valueOf(fact.outcome())
+                        : implied(conditions.get(expr.kind), conditions.get(fact.condition()), fact.outcome());
+                return value == null ? expr : Expr.constant(value);
+            }
+            if (expr.isConstant()) {
+                return expr;
+            }
+            List<Expr> parts = new ArrayList<>(expr.children.size());
+            boolean changed = false;
+            for (Expr child : expr.children) {
+                Expr replaced = substitute(child, fact);
+                changed |= replaced != child;
+                parts.add(replaced);
+            }
+            return changed ? Expr.combine(expr.kind, parts) : expr;
+        }
+
+        private List<Fact> with(List<Fact> facts, Fact fact) {
+            List<Fact> next = new ArrayList<>(facts.size() + 1);
+            next.addAll(facts);
+            next.add(fact);
+            return next;
+        }
+
+        // Remaining formulas plus the earlier outcomes that can still imply one of their conditions
+        private String stateKey(List<Pending> open, SortedSet<Integer> hits, List<Fact> facts) {
+            StringBuilder key = new StringBuilder();
+            Set<String> attributes = new HashSet<>();
+            for (Pending pending : open) {
+                key.append(pending.position()).append(':').append(pending.expr().key()).append(';');
+                List<Integer> used = new ArrayList<>();
+                pending.expr().collect(used);
+                for (int id : used) {
+                    attributes.add(conditions.get(id).getAttribute());
+                }
+            }
+            key.append('|').append(hits).append('|');
+            facts.stream()
+                    .filter(fact -> attributes.contains(conditions.get(fact.condition()).getAttribute()))
+                    .map(fact -> (fact.outcome() ? "+" : "-") + fact.condition())
+                    .sorted()
+                    .forEach(fact -> key.append(fact).append(','));
+            return key.toString();
+        }
+
+        private int leafNode(List<Long> ids) {
+            Integer node = leafNodes.get(ids);
+            if (node == null) {
+                outcomes.add(ids.stream().mapToLong(Long::longValue).toArray());
+                node = addNode(-1, outcomes.size() - 1, -1);
+                leafNodes.put(ids, node);
+            }
+            return node;
+        }
+
+        private int innerNode(int condition, int onTrue, int onFalse) {
+            if (onTrue == onFalse) {
+                return onTrue; // outcome does not matter on this path
+            }
+            List<Integer> key = List.of(condition, onTrue, onFalse);
+            Integer node = innerNodes.get(key);
+            if (node == null) {
+                node = addNode(condition, onTrue, onFalse);
+                innerNodes.put(key, node);
+            }
+            return node;
+        }
+
+        private int addNode(int condition, int onTrue, int onFalse) {
+            if (test.size() >= maxNodes) {
+                throw new CustomException("Decision tree exceeds " + maxNodes + " nodes");
+            }
+            test.add(condition);
+            whenTrue.add(onTrue);
+            whenFalse.add(onFalse);
+            return test.size() - 1;
+        }
+    }
+
+    // Outcome of condition when fact is known to have the given outcome, or null if it is not
+    // implied. Only facts that could not have been reached with a value of another type are
+    // used: a numeric bound proves the value is a number, a string equality proves a string.
+    static Boolean implied(Condition condition, Condition fact, boolean outcome) {
+        if (!condition.getAttribute().equals(fact.getAttribute())) {
+            return null;
+        }
+        // NOT IN is decided as the negation of the IN test over the same list
+        boolean negated = condition.getOperator() == Condition.Operator.NOT_IN;
+        Condition.Operator operator = negated ? Condition.Operator.IN : condition.getOperator();
+        Boolean value;
+        if (operator == Condition.Operator.IN && fact.getOperator().isSet()
+                && fact.getLiteral().equals(condition.getLiteral())) {
+            value = outcome == (fact.getOperator() == Condition.Operator.IN);
+        } else {
+            value = switch (fact.getOperator()) {
+                case GREATER, LESS -> fact.isNumeric() ? impliedByBound(operator, condition, fact, outcome) : null;
+                case EQUALS -> outcome && !fact.isNumeric()
+                        ? impliedByString(operator, condition, Set.of(fact.getLiteral())) : null;
+                case IN -> impliedBySet(operator, condition, fact, outcome);
+                case NOT_IN -> impliedBySet(operator, condition, fact, !outcome);
+            };
+        }
+        if (value == null || !negated) {
+            return value;
+        }
+        return !value;
+    }
+
+    private static Boolean impliedByBound(Condition.Operator operator, Condition condition, Condition fact,
+                                          boolean outcome) {
+        double v = fact.getNumericValue();
+        double lo = Double.NEGATIVE_INFINITY;
+        double hi = Double.POSITIVE_INFINITY;
+        boolean strictLo = false;
+        boolean strictHi = false;
+        if (fact.getOperator() == Condition.Operator.GREATER) {
+            if (outcome) {
+                lo = v;
+                strictLo = true;
+            } else {
+                hi = v;
+            }
+        } else if (outcome) {
+            hi = v;
+            strictHi = true;
+        } else {
+            lo = v;
+        }
+
+        double w = condition.getNumericValue();
+        switch (operator) {
+            case GREATER:
+                if (!condition.isNumeric()) return null;
+                if (lo > w || (lo == w && strictLo)) return true;
+                if (hi <= w) return false;
+                return null;
+            case LESS:
+                if (!condition.isNumeric()) return null;
+                if (hi < w || (hi == w && strictHi)) return true;
+                if (lo >= w) return false;
+                return null;
+            case EQUALS:
+                if (!condition.isNumeric()) return null;
+                return outside(lo, hi, w) ? false : null;
+            case IN:
+                double[] numbers = condition.getSortedNumbers();
+                if (numbers == null) return null;
+                for (double number : numbers) {
+                    if (!outside(lo, hi, number)) return null;
+                }
+                return false;
+            default:
+                return null;
+        }
+    }
+
+    // True when no value in [lo, hi] is within epsilon of w
+    private static boolean outside(double lo, double hi, double w) {
+        return hi <= w - Condition.EPSILON || lo >= w + Condition.EPSILON;
+    }
+
+    private static Boolean impliedBySet(Condition.Operator operator, Condition condition, Condition fact,
+                                        boolean inSet) {
+        Set<String> values = fact.getStringSet();
+        if (inSet) {
+            // Only a string value can match a list that is not all numbers
+            return fact.getSortedNumbers() == null ? impliedByString(operator, condition, values) : null;
+        }
+        return switch (operator) {
+            case EQUALS -> values.contains(condition.getLiteral()) ? false : null;
+            case IN -> values.containsAll(condition.getStringSet()) ? false : null;
+            default -> null;
+        };
+    }
+
+    // The value is a string known to be one of candidates
+    private static Boolean impliedByString(Condition.Operator operator, Condition condition,
+                                           Set<String> candidates) {
+        return switch (operator) {
+            case EQUALS -> {
+                if (!candidates.contains(condition.getLiteral())) yield false;
+                yield candidates.size() == 1 ? Boolean.TRUE : null;
+            }
+            case IN -> {
+                if (condition.getStringSet().containsAll(candidates)) yield true;
+                if (Collections.disjoint(condition.getStringSet(), candidates)) yield false;
+                yield null;
+            }
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,414 @@
+package com.ruleengine.compiler;
+
+import com.ruleengine.exception.CustomException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Compiled rule programs kept outside the Java heap, either in a direct buffer or in a
+// memory-mapped snapshot file. The heap only holds the sorted id -> offset index and the
+// symbol table (attribute names and string literals, which are few and heavily shared).
+//
+// A store is immutable. withChanges builds the next store, copying the unchanged programs
+// byte for byte and encoding only the changed rules; symbols of removed rules stay in the
+// table until the next full build.
+//
+// Layout (little endian):
+//   header   int magic, int version, int ruleCount, int symbolCount, long symbolsOffset, long indexOffset
+//   program  int conditionCount, int codeLength,
+//            conditionCount x (byte operator, int attributeSymbol, int literalSymbol, double number),
+//            codeLength x int
+//   symbols  symbolCount x (int byteLength, utf-8 bytes)
+//   index    ruleCount x (long ruleId, long programOffset), sorted by rule id
+// IN / NOT IN conditions store their canonical value list as the literal symbol.
+public final class OffHeapRuleStore {
+
+    private static final int MAGIC = 0x52554C45; // "RULE"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int CONDITION_SIZE = 1 + 4 + 4 + 8;
+    private static final Condition.Operator[] OPERATORS = Condition.Operator.values();
+
+    private final ByteBuffer buffer;
+    private final long[] ids;
+    private final int[] offsets;
+    private final String[] symbols;
+    private final long totalCost; // sum of code lengths, comparable to CompiledRule.cost()
+    // IN / NOT IN conditions are rebuilt on the heap once per distinct value list
+    private final Map<SetKey, Condition> setConditions = new ConcurrentHashMap<>();
+
+    private OffHeapRuleStore(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int limit = buffer.limit();
+        if (limit < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new CustomException("Not a compiled rule snapshot");
+        }
+        int ruleCount = buffer.getInt(8);
+        int symbolCount = buffer.getInt(12);
+        long symbolsOffset = buffer.getLong(16);
+        long indexOffset = buffer.getLong(24);
+        if (ruleCount < 0 || symbolCount < 0 || symbolsOffset < HEADER_SIZE || indexOffset < symbolsOffset
+                || indexOffset + ruleCount * 16L != limit || symbolCount > (indexOffset - symbolsOffset) / 4) {
+            throw corrupt("header");
+        }
+
+        this.symbols = new String[symbolCount];
+        long pos = symbolsOffset;
+        for (int i = 0; i < symbolCount; i++) {
+            if (pos + 4 > indexOffset) {
+                throw corrupt("symbol table");
+            }
+            int length = buffer.getInt((int) pos);
+            if (length < 0 || pos + 4 + length > indexOffset) {
+                throw corrupt("symbol table");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get((int) pos + 4, bytes);
+            symbols[i] = new String(bytes, StandardCharsets.UTF_8).intern();
+            pos += 4 + length;
+        }
+
+        this.ids = new long[ruleCount];
+        this.offsets = new int[ruleCount];
+        long cost = 0;
+        for (int i = 0; i < ruleCount; i++) {
+            ids[i] = buffer.getLong((int) indexOffset + i * 16);
+            long offset = buffer.getLong((int) indexOffset + i * 16 + 8);
+            if (i > 0 && ids[i] <= ids[i - 1]) {
+                throw corrupt("index order");
+            }
+            if (offset < HEADER_SIZE || offset > symbolsOffset - 8) {
+                throw corrupt("offset of rule " + ids[i]);
+            }
+            offsets[i] = (int) offset;
+            cost += checkProgram(ids[i], offsets[i], (int) symbolsOffset);
+        }
+        this.totalCost = cost;
+    }
+
+    // Rejects a program that would read outside its section or leave the evaluation stack unbalanced,
+    // so a damaged file fails here rather than in the middle of an evaluation. Returns the code length.
+    private int checkProgram(long ruleId, int offset, int end) {
+        int conditionCount = buffer.getInt(offset);
+        int codeLength = buffer.getInt(offset + 4);
+        if (conditionCount < 0 || codeLength <= 0
+                || offset + 8L + (long) conditionCount * CONDITION_SIZE + codeLength * 4L > end) {
+            throw corrupt("program of rule " + ruleId);
+        }
+        int pos = offset + 8;
+        for (int i = 0; i < conditionCount; i++, pos += CONDITION_SIZE) {
+            int operator = buffer.get(pos);
+            int attributeSymbol = buffer.getInt(pos + 1);
+            int literalSymbol = buffer.getInt(pos + 5);
+            if (operator < 0 || operator >= OPERATORS.length
+                    || attributeSymbol < 0 || attributeSymbol >= symbols.length
+                    || literalSymbol < 0 || literalSymbol >= symbols.length) {
+                throw corrupt("condition of rule " + ruleId);
+            }
+            if (OPERATORS[operator].isSet()) {
+                setCondition(OPERATORS[operator], attributeSymbol, literalSymbol); // parses the stored list
+            }
+        }
+        int depth = 0;
+        for (int i = 0; i < codeLength; i++, pos += 4) {
+            int op = buffer.getInt(pos);
+            if (op >= conditionCount || op < CompiledRule.OP_TRUE) {
+                throw corrupt("code of rule " + ruleId);
+            }
+            depth += (op == CompiledRule.OP_AND || op == CompiledRule.OP_OR) ? -1 : 1;
+            if (depth < 1) {
+                throw corrupt("code of rule " + ruleId);
+            }
+        }
+        if (depth != 1) {
+            throw corrupt("code of rule " + ruleId);
+        }
+        return codeLength;
+    }
+
+    private static CustomException corrupt(String part) {
+        return new CustomException("Corrupt rule snapshot: bad " + part);
+    }
+
+    // Encodes the rules into a direct buffer
+    public static OffHeapRuleStore build(Collection<CompiledRule> rules) {
+        return direct(encode(null, rules, Set.of()));
+    }
+
+    // The next store: this one with the given rules added or replaced and the removed ids dropped
+    public OffHeapRuleStore withChanges(Collection<CompiledRule> changed, Collection<Long> removed) {
+        return direct(encode(this, changed, removed));
+    }
+
+    private static OffHeapRuleStore direct(ByteBuffer encoded) {
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.remaining());
+        direct.put(encoded).flip();
+        return new OffHeapRuleStore(direct);
+    }
+
+    // Writes a snapshot file atomically and maps it
+    public static OffHeapRuleStore write(Collection<CompiledRule> rules, Path file) throws IOException {
+        return write(encode(null, rules, Set.of()), file);
+    }
+
+    // Writes this store's contents as a snapshot file and maps it
+    public OffHeapRuleStore writeTo(Path file) throws IOException {
+        return write(buffer.duplicate().clear(), file);
+    }
+
+    private static OffHeapRuleStore write(ByteBuffer encoded, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    public static OffHeapRuleStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new CustomException("Snapshot too large: " + file);
+            }
+            return new OffHeapRuleStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(long ruleId) {
+        return Arrays.binarySearch(ids, ruleId) >= 0;
+    }
+
+    public long[] ruleIds() {
+        return ids.clone();
+    }
+
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    // Interprets the stored program directly from off-heap memory
+    public boolean evaluate(long ruleId, Map<String, Object> data) {
+        return evaluateAt(offsetOf(ruleId), data);
+    }
+
+    // Ids of the matching rules among index positions [from, to), in ascending order. A rule
+    // that cannot be evaluated against the data counts as no match.
+    public long[] matchingRuleIds(Map<String, Object> data, int from, int to) {
+        long[] matched = new long[16];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            boolean result;
+            try {
+                result = evaluateAt(offsets[i], data);
+            } catch (CustomException e) {
+                result = false;
+            }
+            if (result) {
+                if (count == matched.length) {
+                    matched = Arrays.copyOf(matched, count * 2);
+                }
+                matched[count++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(matched, count);
+    }
+
+    private boolean evaluateAt(int offset, Map<String, Object> data) {
+        int conditionCount = buffer.getInt(offset);
+        int codeLength = buffer.getInt(offset + 4);
+        int conditionsStart = offset + 8;
+        int codeStart = conditionsStart + conditionCount * CONDITION_SIZE;
+
+        boolean[] stack = new boolean[Math.max(1, codeLength)];
+        int top = 0;
+        for (int pc = 0; pc < codeLength; pc++) {
+            int op = buffer.getInt(codeStart + pc * 4);
+            if (op >= 0) {
+                int c = conditionsStart + op * CONDITION_SIZE;
+                Condition.Operator operator = OPERATORS[buffer.get(c)];
+                int attributeSymbol = buffer.getInt(c + 1);
+                int literalSymbol = buffer.getInt(c + 5);
+                String attribute = symbols[attributeSymbol];
+                Object value = data.get(attribute);
+                if (operator.isSet()) {
+                    stack[top++] = setCondition(operator, attributeSymbol, literalSymbol).test(value);
+                } else {
+                    stack[top++] = Condition.test(attribute, operator, symbols[literalSymbol],
+                            buffer.getDouble(c + 9), value);
+                }
+            } else if (op == CompiledRule.OP_AND) {
+                top--;
+                stack[top - 1] = stack[top - 1] & stack[top];
+            } else if (op == CompiledRule.OP_OR) {
+                top--;
+                stack[top - 1] = stack[top - 1] | stack[top];
+            } else {
+                stack[top++] = true;
+            }
+        }
+        return stack[0];
+    }
+
+    // Materializes a rule on the heap, for callers that need the object form; it builds its
+    // TruthTable on first evaluation like a freshly compiled rule
+    public CompiledRule load(long ruleId, int maxTableCells) {
+        int offset = offsetOf(ruleId);
+        int conditionCount = buffer.getInt(offset);
+        int codeLength = buffer.getInt(offset + 4);
+        Condition[] conditions = new Condition[conditionCount];
+        int pos = offset + 8;
+        for (int i = 0; i < conditionCount; i++, pos += CONDITION_SIZE) {
+            conditions[i] = Condition.of(symbols[buffer.getInt(pos + 1)], OPERATORS[buffer.get(pos)],
+                    symbols[buffer.getInt(pos + 5)]);
+        }
+        int[] code = new int[codeLength];
+        for (int i = 0; i < codeLength; i++, pos += 4) {
+            code[i] = buffer.getInt(pos);
+        }
+        return new CompiledRule(ruleId, code, conditions, maxTableCells);
+    }
+
+    public List<CompiledRule> loadAll(int maxTableCells) {
+        List<CompiledRule> rules = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            rules.add(load(id, maxTableCells));
+        }
+        return rules;
+    }
+
+    private Condition setCondition(Condition.Operator operator, int attributeSymbol, int literalSymbol) {
+        return setConditions.computeIfAbsent(new SetKey(operator, attributeSymbol, literalSymbol),
+                key -> Condition.of(symbols[attributeSymbol], operator, symbols[literalSymbol]));
+    }
+
+    private record SetKey(Condition.Operator operator, int attributeSymbol, int literalSymbol) {
+    }
+
+    private int offsetOf(long ruleId) {
+        int index = Arrays.binarySearch(ids, ruleId);
+        if (index < 0) {
+            throw new CustomException("Rule not found");
+        }
+        return offsets[index];
+    }
+
+    private int programLength(int offset) {
+        return 8 + buffer.getInt(offset) * CONDITION_SIZE + buffer.getInt(offset + 4) * 4;
+    }
+
+    // Encodes base (may be null) with rules added or replaced and removed dropped. Programs kept
+    // from base are copied as they are: base's symbols come first in the new table, so their
+    // symbol numbers stay valid.
+    private static ByteBuffer encode(OffHeapRuleStore base, Collection<CompiledRule> rules, Collection<Long> removed) {
+        Map<Long, CompiledRule> changed = new HashMap<>();
+        for (CompiledRule rule : rules) {
+            changed.put(rule.getRuleId(), rule);
+        }
+        Set<Long> dropped = new HashSet<>(removed);
+        dropped.addAll(changed.keySet());
+
+        // Every rule of the new store by id: a CompiledRule, or the offset of a program kept from base
+        TreeMap<Long, Object> sorted = new TreeMap<>(changed);
+        Map<String, Integer> symbolIds = new LinkedHashMap<>();
+        long programBytes = 0;
+        if (base != null) {
+            for (String symbol : base.symbols) {
+                symbolIds.putIfAbsent(symbol, symbolIds.size());
+            }
+            if (symbolIds.size() != base.symbols.length) {
+                throw corrupt("symbol table"); // duplicates would renumber the copied programs
+            }
+            for (int i = 0; i < base.ids.length; i++) {
+                if (!dropped.contains(base.ids[i])) {
+                    sorted.put(base.ids[i], base.offsets[i]);
+                    programBytes += base.programLength(base.offsets[i]);
+                }
+            }
+        }
+        for (CompiledRule rule : changed.values()) {
+            for (Condition condition : rule.getConditions()) {
+                symbolIds.putIfAbsent(condition.getAttribute(), symbolIds.size());
+                symbolIds.putIfAbsent(condition.getLiteral(), symbolIds.size());
+            }
+            programBytes += 8L + (long) rule.getConditions().length * CONDITION_SIZE + rule.getCode().length * 4L;
+        }
+
+        List<byte[]> symbolBytes = new ArrayList<>(symbolIds.size());
+        long symbolsSize = 0;
+        for (String symbol : symbolIds.keySet()) {
+            byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+            symbolBytes.add(bytes);
+            symbolsSize += 4 + bytes.length;
+        }
+
+        long total = HEADER_SIZE + programBytes + symbolsSize + sorted.size() * 16L;
+        if (total > Integer.MAX_VALUE) {
+            throw new CustomException("Rule set too large for a single store: " + total + " bytes");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        out.position(HEADER_SIZE);
+        long[] ruleIds = new long[sorted.size()];
+        long[] programOffsets = new long[sorted.size()];
+        int r = 0;
+        for (Map.Entry<Long, Object> entry : sorted.entrySet()) {
+            ruleIds[r] = entry.getKey();
+            programOffsets[r++] = out.position();
+            if (entry.getValue() instanceof Integer offset) {
+                out.put(base.buffer.slice(offset, base.programLength(offset)));
+                continue;
+            }
+            CompiledRule rule = (CompiledRule) entry.getValue();
+            out.putInt(rule.getConditions().length);
+            out.putInt(rule.getCode().length);
+            for (Condition condition : rule.getConditions()) {
+                out.put((byte) condition.getOperator().ordinal());
+                out.putInt(symbolIds.get(condition.getAttribute()));
+                out.putInt(symbolIds.get(condition.getLiteral()));
+                out.putDouble(condition.getNumericValue());
+            }
+            for (int op : rule.getCode()) {
+                out.putInt(op);
+            }
+        }
+
+        long symbolsOffset = out.position();
+        for (byte[] bytes : symbolBytes) {
+            out.putInt(bytes.length);
+            out.put(bytes);
+        }
+
+        long indexOffset = out.position();
+        for (int i = 0; i < ruleIds.length; i++) {
+            out.putLong(ruleIds[i]);
+            out.putLong(programOffsets[i]);
+        }
+
+        out.putInt(0, MAGIC);
+        out.putInt(4, VERSION);
+        out.putInt(8, sorted.size());
+        out.putInt(12, symbolIds.size());
+        out.putLong(16, symbolsOffset);
+        out.putLong(24, indexOffset);
+        out.flip();
+        return out;
+    }
+}
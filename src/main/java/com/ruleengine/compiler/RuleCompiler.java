@@ -0,0 +1,244 @@
+package com.ruleengine.compiler;
+
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Node;
+import com.ruleengine.model.Rule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+@Component
+public class RuleCompiler {
+
+    private static final int DEFAULT_MAX_TABLE_CELLS = 4096;
+
+    // Rules over at most this many attribute cells also get a TruthTable, built on their first
+    // evaluation; 0 disables them
+    private final int maxTableCells;
+
+    public RuleCompiler() {
+        this(DEFAULT_MAX_TABLE_CELLS);
+    }
+
+    @Autowired
+    public RuleCompiler(@Value("${rules.truth-table.max-cells:4096}") int maxTableCells) {
+        this.maxTableCells = maxTableCells;
+    }
+
+    public CompiledRule compile(Rule rule) {
+        return compile(rule.getId(), rule.getRootNode());
+    }
+
+    public CompiledRule compile(Long ruleId, Node root) {
+        Program program = new Program(null, Set.of(), maxTableCells);
+        emit(root, program);
+        return program.build(ruleId);
+    }
+
+    // Recompiles a rule after a structural diff (see TreeDiff): stored subtrees that are not in
+    // changedNodeIds are copied from the previous program as they are, with their parsed
+    // conditions, and only new or changed subtrees are compiled again.
+    public CompiledRule recompile(CompiledRule previous, Rule rule, Set<Long> changedNodeIds) {
+        Program program = new Program(previous, changedNodeIds, maxTableCells);
+        emit(rule.getRootNode(), program);
+        return program.build(rule.getId());
+    }
+
+    public int getMaxTableCells() {
+        return maxTableCells;
+    }
+
+    public List<CompiledRule> compileAll(List<Rule> rules) {
+        List<CompiledRule> compiled = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            compiled.add(compile(rule));
+        }
+        return compiled;
+    }
+
+    // Emits the tree in postfix order with an explicit work stack, so rule depth is not bounded
+    // by the call stack. Work items are subtrees to emit, opcodes and conditions to append, and
+    // markers that close a stored subtree's code slice once its code is complete.
+    private void emit(Node root, Program program) {
+        Deque<Object> work = new ArrayDeque<>();
+        work.push(new Emit(root));
+        while (!work.isEmpty()) {
+            Object item = work.pop();
+            if (item instanceof Integer op) {
+                program.code.add(op);
+            } else if (item instanceof Condition condition) {
+                emitCondition(condition, program);
+            } else if (item instanceof long[] slice) {
+                program.subtrees.add(new long[]{slice[0], slice[1], program.code.size(), slice[2]});
+            } else {
+                Node node = ((Emit) item).node();
+                if (node == null) {
+                    program.code.add(CompiledRule.OP_TRUE);
+                } else if (node.getId() == null) {
+                    expand(node, work);
+                } else {
+                    int codeStart = program.code.size();
+                    int firstCondition = program.conditions.size();
+                    if (splice(node, program)) {
+                        program.subtrees.add(new long[]{node.getId(), codeStart, program.code.size(), firstCondition});
+                    } else {
+                        work.push(new long[]{node.getId(), codeStart, firstCondition});
+                        expand(node, work);
+                    }
+                }
+            }
+        }
+    }
+
+    // A subtree still to be emitted; null stands for a missing child
+    private record Emit(Node node) {
+    }
+
+    // Copies the unchanged subtree's slice of the previous program, renumbering its conditions
+    private boolean splice(Node node, Program program) {
+        CompiledRule previous = program.previous;
+        if (previous == null || program.changedNodeIds.contains(node.getId())) {
+            return false;
+        }
+        int index = previous.subtree(node.getId());
+        if (index < 0) {
+            return false;
+        }
+        int[] ranges = previous.getSubtreeRanges();
+        int[] code = previous.getCode();
+        Condition[] conditions = previous.getConditions();
+        int offset = program.conditions.size() - ranges[index * 3 + 2];
+        for (int i = ranges[index * 3]; i < ranges[index * 3 + 1]; i++) {
+            int op = code[i];
+            if (op >= 0) {
+                program.conditions.add(conditions[op]);
+                program.code.add(op + offset);
+            } else {
+                program.code.add(op);
+            }
+        }
+        return true;
+    }
+
+    // Pushes the work that emits node, in reverse order of execution
+    private void expand(Node node, Deque<Object> work) {
+        if ("operand".equals(node.getType())) {
+            work.push(Condition.parse(node.getValue()));
+            return;
+        }
+
+        if ("OR".equals(node.getValue())) {
+            expandOrChain(node, work);
+            return;
+        }
+
+        work.push(switch (node.getValue()) {
+            case "AND" -> CompiledRule.OP_AND;
+            default -> throw new CustomException("Unknown operator: " + node.getValue());
+        });
+        work.push(new Emit(node.getRight()));
+        work.push(new Emit(node.getLeft()));
+    }
+
+    // Flattens a chain of ORs and folds equality tests (and IN lists) on the same attribute
+    // into one IN condition, so "d = 'a' OR d = 'b' OR d = 'c'" becomes a single set lookup.
+    // Terms are otherwise emitted in their original order.
+    private void expandOrChain(Node node, Deque<Object> work) {
+        List<Object> items = new ArrayList<>(); // Emit, Condition or List<Condition> (equality group)
+        Map<String, List<Condition>> groups = new HashMap<>();
+        for (Node term : flattenOr(node)) {
+            if (term == null || !"operand".equals(term.getType())) {
+                items.add(new Emit(term));
+                continue;
+            }
+            Condition condition = Condition.parse(term.getValue());
+            Condition.Operator operator = condition.getOperator();
+            if (operator != Condition.Operator.EQUALS && operator != Condition.Operator.IN) {
+                items.add(condition);
+                continue;
+            }
+            List<Condition> group = groups.get(condition.getAttribute());
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(condition.getAttribute(), group);
+                items.add(group);
+            }
+            group.add(condition);
+        }
+
+        for (int i = items.size() - 1; i >= 0; i--) {
+            if (i > 0) {
+                work.push(CompiledRule.OP_OR);
+            }
+            Object item = items.get(i);
+            work.push(item instanceof List<?> group ? merge(group) : item);
+        }
+    }
+
+    // Terms of an OR chain from left to right
+    private List<Node> flattenOr(Node root) {
+        List<Node> terms = new ArrayList<>();
+        List<Node> pending = new ArrayList<>(); // may hold null children
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            if (node != null && "operator".equals(node.getType()) && "OR".equals(node.getValue())) {
+                pending.add(node.getRight());
+                pending.add(node.getLeft());
+            } else {
+                terms.add(node);
+            }
+        }
+        return terms;
+    }
+
+    private Condition merge(List<?> group) {
+        Condition first = (Condition) group.get(0);
+        if (group.size() == 1) {
+            return first;
+        }
+        List<String> values = new ArrayList<>();
+        for (Object member : group) {
+            values.addAll(((Condition) member).getValues());
+        }
+        return Condition.in(first.getAttribute(), values);
+    }
+
+    private void emitCondition(Condition condition, Program program) {
+        program.code.add(program.conditions.size());
+        program.conditions.add(condition);
+    }
+
+    // Program under construction plus the code slice of every stored subtree emitted into it
+    private static final class Program {
+        final List<Integer> code = new ArrayList<>();
+        final List<Condition> conditions = new ArrayList<>();
+        final List<long[]> subtrees = new ArrayList<>(); // {nodeId, codeStart, codeEnd, firstCondition}
+        final CompiledRule previous;
+        final Set<Long> changedNodeIds;
+        final int maxTableCells;
+
+        Program(CompiledRule previous, Set<Long> changedNodeIds, int maxTableCells) {
+            this.previous = previous;
+            this.changedNodeIds = changedNodeIds;
+            this.maxTableCells = maxTableCells;
+        }
+
+        CompiledRule build(Long ruleId) {
+            subtrees.sort(Comparator.comparingLong(s -> s[0]));
+            long[] ids = new long[subtrees.size()];
+            int[] ranges = new int[subtrees.size() * 3];
+            for (int i = 0; i < ids.length; i++) {
+                long[] subtree = subtrees.get(i);
+                ids[i] = subtree[0];
+                ranges[i * 3] = (int) subtree[1];
+                ranges[i * 3 + 1] = (int) subtree[2];
+                ranges[i * 3 + 2] = (int) subtree[3];
+            }
+            return new CompiledRule(ruleId, code.stream().mapToInt(Integer::intValue).toArray(),
+                    conditions.toArray(new Condition[0]), ids, ranges, maxTableCells);
+        }
+    }
+}
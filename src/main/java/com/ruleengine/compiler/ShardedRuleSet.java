@@ -0,0 +1,58 @@
+package com.ruleengine.compiler;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Immutable rule set split into shards of roughly equal evaluation cost.
+// Shards are filled greedily, most expensive rule first, into the currently lightest shard.
+@Getter
+public final class ShardedRuleSet {
+
+    private final List<CompiledRule> rules;
+    private final CompiledRule[][] shards;
+    private final long totalCost;
+
+    private ShardedRuleSet(List<CompiledRule> rules, CompiledRule[][] shards, long totalCost) {
+        this.rules = rules;
+        this.shards = shards;
+        this.totalCost = totalCost;
+    }
+
+    public static ShardedRuleSet partition(List<CompiledRule> rules, int shardCount) {
+        int count = Math.max(1, Math.min(shardCount, rules.size()));
+        List<CompiledRule> byCost = new ArrayList<>(rules);
+        byCost.sort(Comparator.comparingInt(CompiledRule::cost).reversed());
+
+        long[] load = new long[count];
+        List<List<CompiledRule>> buckets = new ArrayList<>(count);
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(count,
+                Comparator.<Integer>comparingLong(i -> load[i]).thenComparingInt(i -> i));
+        for (int i = 0; i < count; i++) {
+            buckets.add(new ArrayList<>());
+            lightest.add(i);
+        }
+
+        long total = 0;
+        for (CompiledRule rule : byCost) {
+            int shard = lightest.poll();
+            buckets.get(shard).add(rule);
+            load[shard] += rule.cost();
+            total += rule.cost();
+            lightest.add(shard);
+        }
+
+        CompiledRule[][] shards = new CompiledRule[count][];
+        for (int i = 0; i < count; i++) {
+            shards[i] = buckets.get(i).toArray(new CompiledRule[0]);
+        }
+        return new ShardedRuleSet(List.copyOf(rules), shards, total);
+    }
+
+    public int size() {
+        return rules.size();
+    }
+}
@@ -0,0 +1,126 @@
+package com.ruleengine.compiler;
+
+import com.ruleengine.model.Node;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+// Structural diff of a stored rule tree against a newly parsed one, applied in place.
+//
+// Both trees are walked together by position. Where the shape matches, the stored node is
+// kept (same id, no write) and only a changed operand text or operator is copied onto it;
+// where the shape differs, the new subtree replaces the stored one and is inserted, and the
+// replaced subtree is left for NodeCompactionJob. changedNodeIds holds every kept node whose
+// subtree changed, i.e. the changed nodes and their ancestors; every other kept subtree is
+// identical to before, so anything compiled or cached for it stays valid.
+@Getter
+public final class TreeDiff {
+
+    private final Set<Long> changedNodeIds = new HashSet<>();
+    private Node root;
+    private int reused;
+    private int updated;
+    private int inserted;
+    private int detached;
+
+    private TreeDiff() {
+    }
+
+    public static TreeDiff apply(Node stored, Node parsed) {
+        TreeDiff diff = new TreeDiff();
+        diff.root = diff.merge(stored, parsed);
+        return diff;
+    }
+
+    public boolean isUnchanged() {
+        return updated == 0 && inserted == 0 && detached == 0;
+    }
+
+    // Post-order walk with an explicit stack, so a deep stored tree cannot overflow the call stack.
+    // An operator is visited twice: first to merge its own value and queue its children, then
+    // (exit) to attach the merged children, which are on top of the results stack.
+    private Node merge(Node storedRoot, Node parsedRoot) {
+        List<Node> results = new ArrayList<>(); // merged subtrees, may hold null
+        Deque<Step> pending = new ArrayDeque<>();
+        pending.push(new Step(storedRoot, parsedRoot, false, false));
+        while (!pending.isEmpty()) {
+            Step step = pending.pop();
+            Node stored = step.stored();
+            Node parsed = step.parsed();
+            if (step.exit()) {
+                Node right = results.remove(results.size() - 1);
+                Node left = results.remove(results.size() - 1);
+                boolean changed = step.changed() || left != stored.getLeft() || right != stored.getRight()
+                        || isChanged(left) || isChanged(right);
+                stored.setLeft(left);
+                stored.setRight(right);
+                record(stored, changed);
+                results.add(stored);
+                continue;
+            }
+            if (parsed == null) {
+                detached += count(stored);
+                results.add(null);
+                continue;
+            }
+            if (stored == null || !Objects.equals(stored.getType(), parsed.getType())) {
+                detached += count(stored);
+                inserted += count(parsed);
+                results.add(parsed);
+                continue;
+            }
+
+            boolean changed = !Objects.equals(stored.getValue(), parsed.getValue());
+            if (changed) {
+                stored.setValue(parsed.getValue());
+                updated++;
+            } else {
+                reused++;
+            }
+            if ("operand".equals(stored.getType())) {
+                record(stored, changed);
+                results.add(stored);
+            } else {
+                pending.push(new Step(stored, parsed, true, changed));
+                pending.push(new Step(stored.getRight(), parsed.getRight(), false, false));
+                pending.push(new Step(stored.getLeft(), parsed.getLeft(), false, false));
+            }
+        }
+        return results.get(0);
+    }
+
+    private record Step(Node stored, Node parsed, boolean exit, boolean changed) {
+    }
+
+    private void record(Node kept, boolean changed) {
+        if (changed && kept.getId() != null) {
+            changedNodeIds.add(kept.getId());
+        }
+    }
+
+    private boolean isChanged(Node node) {
+        return node != null && changedNodeIds.contains(node.getId());
+    }
+
+    // Iterative: a replaced subtree may be an arbitrarily deep legacy tree
+    private static int count(Node node) {
+        int count = 0;
+        Deque<Node> pending = new ArrayDeque<>();
+        if (node != null) {
+            pending.push(node);
+        }
+        while (!pending.isEmpty()) {
+            Node next = pending.pop();
+            count++;
+            if (next.getLeft() != null) pending.push(next.getLeft());
+            if (next.getRight() != null) pending.push(next.getRight());
+        }
+        return count;
+    }
+}
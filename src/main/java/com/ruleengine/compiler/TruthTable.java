@@ -0,0 +1,207 @@
+package com.ruleengine.compiler;
+
+import lombok.Getter;
+
+import java.util.*;
+
+// A compiled rule materialized as a bitmap over the cross product of attribute intervals.
+//
+// For a numeric attribute the conditions' thresholds split the number line into cells: every
+// breakpoint is a cell of its own and so is every open interval between two breakpoints, so all
+// conditions on the attribute are constant within a cell. Equality (and IN lists) hold inside
+// a small window around each value; its exact edges are found by probing Condition.test itself.
+// A string attribute compared only with = / IN / NOT IN has one cell per literal plus one for
+// every other value. The result of each cell combination is computed once by running the rule
+// on representative values, and evaluation is one binary search per attribute plus a bit test.
+//
+// Values outside the table's domain (missing attribute, unexpected type, NaN) are reported as
+// unknown, and the caller evaluates the program instead, with its usual results and errors.
+@Getter
+public final class TruthTable {
+
+    private static final int MAX_EDGE_PROBES = 64;
+
+    private final String[] attributes;
+    private final double[][] breakpoints; // per numeric attribute, sorted; null for string attributes
+    private final String[][] domains;     // per string attribute, sorted literals; null for numeric ones
+    private final int[] strides;
+    private final int cells;
+    private final long[] bits;
+
+    private TruthTable(String[] attributes, double[][] breakpoints, String[][] domains, int[] strides,
+                       int cells, long[] bits) {
+        this.attributes = attributes;
+        this.breakpoints = breakpoints;
+        this.domains = domains;
+        this.strides = strides;
+        this.cells = cells;
+        this.bits = bits;
+    }
+
+    // Null when the rule has an attribute that cannot be split into cells, or more than maxCells cells
+    public static TruthTable build(CompiledRule rule, int maxCells) {
+        Map<String, List<Condition>> byAttribute = new LinkedHashMap<>();
+        for (Condition condition : rule.getConditions()) {
+            byAttribute.computeIfAbsent(condition.getAttribute(), a -> new ArrayList<>()).add(condition);
+        }
+        if (byAttribute.isEmpty()) {
+            return null;
+        }
+
+        int count = byAttribute.size();
+        String[] attributes = byAttribute.keySet().toArray(new String[0]);
+        double[][] breakpoints = new double[count][];
+        String[][] domains = new String[count][];
+        Object[][] representatives = new Object[count][];
+        int[] strides = new int[count];
+        long cells = 1;
+        for (int a = 0; a < count; a++) {
+            List<Condition> conditions = byAttribute.get(attributes[a]);
+            if (conditions.stream().allMatch(TruthTable::isNumeric)) {
+                breakpoints[a] = breakpoints(conditions);
+                if (breakpoints[a] == null) {
+                    return null;
+                }
+                representatives[a] = numericRepresentatives(breakpoints[a]);
+            } else if (conditions.stream().allMatch(TruthTable::isCategorical)) {
+                domains[a] = domain(conditions);
+                representatives[a] = categoricalRepresentatives(domains[a]);
+            } else {
+                return null;
+            }
+            strides[a] = (int) cells;
+            cells *= representatives[a].length;
+            if (cells > maxCells) {
+                return null;
+            }
+        }
+
+        long[] bits = new long[(int) ((cells + 63) >>> 6)];
+        Map<String, Object> sample = new HashMap<>();
+        for (int index = 0; index < cells; index++) {
+            for (int a = 0; a < count; a++) {
+                sample.put(attributes[a], representatives[a][index / strides[a] % representatives[a].length]);
+            }
+            if (rule.evaluateProgram(sample)) {
+                bits[index >>> 6] |= 1L << index;
+            }
+        }
+        return new TruthTable(attributes, breakpoints, domains, strides, (int) cells, bits);
+    }
+
+    // 1 or 0 for the rule's result, -1 when a value is outside the table's domain
+    public int lookup(Map<String, Object> data) {
+        int index = 0;
+        for (int a = 0; a < attributes.length; a++) {
+            Object value = data.get(attributes[a]);
+            int cell;
+            if (breakpoints[a] != null) {
+                if (!(value instanceof Number number)) {
+                    return -1;
+                }
+                double x = number.doubleValue() + 0.0; // folds -0.0 into 0.0
+                if (Double.isNaN(x)) {
+                    return -1;
+                }
+                int found = Arrays.binarySearch(breakpoints[a], x);
+                cell = found >= 0 ? 2 * found + 1 : 2 * (-found - 1);
+            } else {
+                if (!(value instanceof String string)) {
+                    return -1;
+                }
+                int found = Arrays.binarySearch(domains[a], string);
+                cell = found >= 0 ? found : domains[a].length;
+            }
+            index += cell * strides[a];
+        }
+        return (int) (bits[index >>> 6] >>> index) & 1;
+    }
+
+    private static boolean isNumeric(Condition condition) {
+        return condition.getOperator().isSet() ? condition.getSortedNumbers() != null : condition.isNumeric();
+    }
+
+    private static boolean isCategorical(Condition condition) {
+        Condition.Operator operator = condition.getOperator();
+        return operator.isSet() || operator == Condition.Operator.EQUALS;
+    }
+
+    private static double[] breakpoints(List<Condition> conditions) {
+        TreeSet<Double> points = new TreeSet<>();
+        for (Condition condition : conditions) {
+            switch (condition.getOperator()) {
+                // x > c and x < c both change exactly at c
+                case GREATER, LESS -> points.add(condition.getNumericValue() + 0.0);
+                case EQUALS -> {
+                    if (!addWindowEdges(condition, condition.getNumericValue(), points)) return null;
+                }
+                default -> {
+                    for (double value : condition.getSortedNumbers()) {
+                        if (!addWindowEdges(condition, value, points)) return null;
+                    }
+                }
+            }
+        }
+        return points.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    // Adds the last value outside the equality window on either side of value, so the open
+    // interval between them is exactly where the condition's outcome differs from outside.
+    // Gives up when the window does not end near value +/- EPSILON, e.g. overlapping list values.
+    private static boolean addWindowEdges(Condition condition, double value, Set<Double> points) {
+        boolean inside = condition.test(value);
+        double below = value - Condition.EPSILON;
+        double above = value + Condition.EPSILON;
+        for (int probe = 0; condition.test(below) == inside; probe++) {
+            if (probe == MAX_EDGE_PROBES) return false;
+            below = Math.nextDown(below);
+        }
+        for (int probe = 0; condition.test(Math.nextUp(below)) != inside; probe++) {
+            if (probe == MAX_EDGE_PROBES) return false;
+            below = Math.nextUp(below);
+        }
+        for (int probe = 0; condition.test(above) == inside; probe++) {
+            if (probe == MAX_EDGE_PROBES) return false;
+            above = Math.nextUp(above);
+        }
+        for (int probe = 0; condition.test(Math.nextDown(above)) != inside; probe++) {
+            if (probe == MAX_EDGE_PROBES) return false;
+            above = Math.nextDown(above);
+        }
+        points.add(below + 0.0);
+        points.add(above + 0.0);
+        return true;
+    }
+
+    // Cell 2i + 1 is breakpoint i, cell 2i the open interval below it, the last cell everything above
+    private static Object[] numericRepresentatives(double[] points) {
+        Object[] values = new Object[2 * points.length + 1];
+        for (int i = 0; i < points.length; i++) {
+            double low = i == 0 ? points[0] - Math.max(1, Math.abs(points[0])) : points[i - 1];
+            values[2 * i] = low + (points[i] - low) / 2; // an empty interval is never looked up
+            values[2 * i + 1] = points[i];
+        }
+        double last = points[points.length - 1];
+        values[2 * points.length] = last + Math.max(1, Math.abs(last));
+        return values;
+    }
+
+    private static String[] domain(List<Condition> conditions) {
+        TreeSet<String> literals = new TreeSet<>();
+        for (Condition condition : conditions) {
+            literals.addAll(condition.getValues());
+        }
+        return literals.toArray(new String[0]);
+    }
+
+    // The literals themselves, then one value equal to none of them
+    private static Object[] categoricalRepresentatives(String[] domain) {
+        Object[] values = Arrays.copyOf(domain, domain.length + 1, Object[].class);
+        String other = "";
+        while (Arrays.binarySearch(domain, other) >= 0) {
+            other += "\u0000";
+        }
+        values[domain.length] = other;
+        return values;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ruleengine.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background maintenance such as NodeCompactionJob; set rules.compaction.enabled=false to run it only on demand
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "rules.compaction.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
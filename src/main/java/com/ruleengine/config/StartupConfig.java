@@ -0,0 +1,32 @@
+package com.ruleengine.config;
+
+import com.ruleengine.batch.NodeCompactionJob;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.controller.RuleController;
+import com.ruleengine.service.CompiledRuleCache;
+import com.ruleengine.service.RuleService;
+import com.ruleengine.service.RuleSetEvaluator;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+@Configuration
+public class StartupConfig {
+
+    // With spring.main.lazy-initialization=true (faststart profile) everything else is created on
+    // first use; the evaluation path and the scheduled compaction job are still built at startup
+    @Bean
+    static LazyInitializationExcludeFilter evaluationPathEagerInit() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                EntityManagerFactory.class,
+                AbstractEntityManagerFactoryBean.class,
+                RuleCompiler.class,
+                CompiledRuleCache.class,
+                RuleSetEvaluator.class,
+                RuleService.class,
+                RuleController.class,
+                NodeCompactionJob.class);
+    }
+}
@@ -0,0 +1,75 @@
+package com.ruleengine.controller;
+
+import com.ruleengine.service.DecisionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/decisions")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")  // Enable CORS for development
+public class DecisionController {
+
+    private final DecisionService decisionService;
+
+    @PutMapping("/entity")
+    public ResponseEntity<?> putEntity(
+            @RequestParam String entityId,
+            @RequestBody Map<String, Object> attributes) {
+        try {
+            Map<Long, Boolean> flipped = decisionService.putEntity(entityId, attributes);
+            return ResponseEntity.ok(Map.of(
+                    "entityId", entityId,
+                    "flipped", flipped
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PatchMapping("/entity")
+    public ResponseEntity<?> updateEntity(
+            @RequestParam String entityId,
+            @RequestBody Map<String, Object> changes) {
+        try {
+            Map<Long, Boolean> flipped = decisionService.updateEntity(entityId, changes);
+            return ResponseEntity.ok(Map.of(
+                    "entityId", entityId,
+                    "flipped", flipped
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/entity")
+    public ResponseEntity<?> getDecisions(@RequestParam String entityId) {
+        try {
+            List<Long> matchingRuleIds = decisionService.getMatchingRuleIds(entityId);
+            return ResponseEntity.ok(Map.of(
+                    "entityId", entityId,
+                    "matchingRuleIds", matchingRuleIds
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/entity")
+    public ResponseEntity<?> deleteEntity(@RequestParam String entityId) {
+        try {
+            decisionService.deleteEntity(entityId);
+            return ResponseEntity.ok(Map.of("message", "Entity deleted successfully"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ruleengine.controller;
+
+import com.ruleengine.audit.DecisionAuditLog;
+import com.ruleengine.batch.NodeCompactionJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/maintenance")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")  // Enable CORS for development
+public class MaintenanceController {
+
+    private final NodeCompactionJob nodeCompactionJob;
+    private final DecisionAuditLog decisionAuditLog;
+
+    @PostMapping("/compactNodes")
+    public ResponseEntity<?> compactNodes() {
+        try {
+            NodeCompactionJob.CompactionResult result = nodeCompactionJob.compact();
+            if (result == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "Node compaction is already running"));
+            }
+            return ResponseEntity.ok(Map.of(
+                    "message", "Node compaction finished",
+                    "result", result
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/compactNodes")
+    public ResponseEntity<?> lastCompaction() {
+        NodeCompactionJob.CompactionResult result = nodeCompactionJob.getLastResult();
+        if (result == null) {
+            return ResponseEntity.ok(Map.of("message", "No node compaction has run yet"));
+        }
+        return ResponseEntity.ok(Map.of("result", result));
+    }
+
+    // Queue depth, writer lag and lost records of the decision audit log
+    @GetMapping("/audit")
+    public ResponseEntity<?> auditMetrics() {
+        return ResponseEntity.ok(Map.of("metrics", decisionAuditLog.getMetrics()));
+    }
+}
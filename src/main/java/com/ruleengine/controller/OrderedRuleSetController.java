@@ -0,0 +1,126 @@
+package com.ruleengine.controller;
+
+import com.ruleengine.model.OrderedRuleSet;
+import com.ruleengine.service.OrderedRuleSetService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ruleSets")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")  // Enable CORS for development
+public class OrderedRuleSetController {
+
+    private final OrderedRuleSetService ruleSetService;
+
+    // Body: {"name": ..., "mode": "FIRST_MATCH" | "ALL_MATCH", "ruleIds": [...]} (rules in priority order)
+    @PostMapping("/create")
+    public ResponseEntity<?> createRuleSet(@RequestBody Map<String, Object> requestBody) {
+        try {
+            Object name = requestBody.get("name");
+            if (name == null || name.toString().trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Rule set name is required"));
+            }
+
+            OrderedRuleSet ruleSet = ruleSetService.createRuleSet(name.toString().trim(),
+                    mode(requestBody), ruleIds(requestBody));
+            return ResponseEntity.ok(Map.of(
+                    "message", "Rule set created successfully",
+                    "ruleSet", ruleSet,
+                    "tree", ruleSetService.describeTree(ruleSet.getId())
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/modify")
+    public ResponseEntity<?> modifyRuleSet(
+            @RequestParam Long ruleSetId,
+            @RequestBody Map<String, Object> requestBody) {
+        try {
+            OrderedRuleSet ruleSet = ruleSetService.modifyRuleSet(ruleSetId, mode(requestBody), ruleIds(requestBody));
+            return ResponseEntity.ok(Map.of(
+                    "message", "Rule set modified successfully",
+                    "ruleSet", ruleSet,
+                    "tree", ruleSetService.describeTree(ruleSetId)
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/evaluate")
+    public ResponseEntity<?> evaluateRuleSet(
+            @RequestBody Map<String, Object> userData,
+            @RequestParam Long ruleSetId) {
+        try {
+            List<Long> matchingRuleIds = ruleSetService.evaluateRuleSet(ruleSetId, userData);
+            return ResponseEntity.ok(Map.of(
+                    "matchingRuleIds", matchingRuleIds,
+                    "matched", !matchingRuleIds.isEmpty()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/getRuleSets")
+    public ResponseEntity<?> getRuleSets() {
+        try {
+            List<OrderedRuleSet> ruleSets = ruleSetService.getRuleSets();
+            return ResponseEntity.ok(Map.of(
+                    "ruleSets", ruleSets,
+                    "count", ruleSets.size()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/tree")
+    public ResponseEntity<?> describeTree(@RequestParam Long ruleSetId) {
+        try {
+            return ResponseEntity.ok(ruleSetService.describeTree(ruleSetId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/delete")
+    public ResponseEntity<?> deleteRuleSet(@RequestParam Long ruleSetId) {
+        try {
+            ruleSetService.deleteRuleSet(ruleSetId);
+            return ResponseEntity.ok(Map.of("message", "Rule set deleted successfully"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private OrderedRuleSet.Mode mode(Map<String, Object> requestBody) {
+        Object mode = requestBody.getOrDefault("mode", OrderedRuleSet.Mode.FIRST_MATCH.name());
+        return OrderedRuleSet.Mode.valueOf(mode.toString().trim().toUpperCase());
+    }
+
+    private List<Long> ruleIds(Map<String, Object> requestBody) {
+        List<Long> ruleIds = new ArrayList<>();
+        if (requestBody.get("ruleIds") instanceof List<?> values) {
+            for (Object value : values) {
+                ruleIds.add(((Number) value).longValue());
+            }
+        }
+        return ruleIds;
+    }
+}
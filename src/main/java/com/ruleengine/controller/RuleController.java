@@ -3,13 +3,21 @@ package com.ruleengine.controller;
 import com.ruleengine.model.Node;
 import com.ruleengine.model.Rule;
 import com.ruleengine.service.RuleService;
+import com.ruleengine.service.RulesResponseCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 @RestController
 @RequestMapping("/api/rules")
@@ -18,6 +26,7 @@ import java.util.HashMap;
 public class RuleController {
 
     private final RuleService ruleService;
+    private final RulesResponseCache rulesResponseCache;
 
     @PostMapping("/create")
     public ResponseEntity<?> createRule(@RequestBody Map<String, String> requestBody) {
@@ -46,12 +55,18 @@ public class RuleController {
         }
     }
 
+    // All evaluate endpoints accept and produce application/cbor and application/x-jackson-smile
+    // as well as JSON. lean=true drops the message and echoed input from the response.
     @PostMapping("/evaluate")
     public ResponseEntity<?> evaluateRule(
             @RequestBody Map<String, Object> userData,
-            @RequestParam Long ruleId) {
+            @RequestParam Long ruleId,
+            @RequestParam(defaultValue = "false") boolean lean) {
         try {
             boolean result = ruleService.evaluateRule(ruleId, userData);
+            if (lean) {
+                return ResponseEntity.ok(Map.of("result", result));
+            }
             Map<String, Object> response = new HashMap<>();
             response.put("result", result);
             response.put("message", result ? "Rule conditions met" : "Rule conditions not met");
@@ -63,6 +78,50 @@ public class RuleController {
         }
     }
 
+    @PostMapping("/evaluateMany")
+    public ResponseEntity<?> evaluateRules(
+            @RequestBody Map<String, Object> userData,
+            @RequestParam List<Long> ruleIds,
+            @RequestParam(defaultValue = "false") boolean lean) {
+        try {
+            BitSet results = ruleService.evaluateRules(ruleIds, userData);
+            if (lean) {
+                // bit i (little-endian) is the result for ruleIds[i]
+                return ResponseEntity.ok(Map.of("bits", results.toByteArray()));
+            }
+            Map<Long, Boolean> byRule = new LinkedHashMap<>();
+            for (int i = 0; i < ruleIds.size(); i++) {
+                byRule.put(ruleIds.get(i), results.get(i));
+            }
+            return ResponseEntity.ok(Map.of(
+                    "results", byRule,
+                    "matched", results.cardinality()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/evaluateAll")
+    public ResponseEntity<?> evaluateAllRules(
+            @RequestBody Map<String, Object> userData,
+            @RequestParam(defaultValue = "false") boolean lean) {
+        try {
+            List<Long> matchingRuleIds = ruleService.evaluateAllRules(userData);
+            if (lean) {
+                return ResponseEntity.ok(Map.of("matchingRuleIds", matchingRuleIds));
+            }
+            return ResponseEntity.ok(Map.of(
+                    "matchingRuleIds", matchingRuleIds,
+                    "count", matchingRuleIds.size()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/combine")
     public ResponseEntity<?> combineRules(@RequestBody List<Long> ruleIds) {
         try {
@@ -103,13 +162,61 @@ public class RuleController {
         }
     }
 
+    // Served from RulesResponseCache: ETag / Last-Modified follow the rule version, matching
+    // conditional requests get 304 and JSON bodies are gzip-encoded when the client accepts it
     @GetMapping("/getRules")
-    public ResponseEntity<?> getRules() {
+    public ResponseEntity<?> getRules(WebRequest request) {
+        try {
+            RulesResponseCache.Snapshot snapshot = rulesResponseCache.get();
+            if (request.checkNotModified(snapshot.eTag(), snapshot.lastModified())) {
+                // ETag and Last-Modified are already set by checkNotModified
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .eTag(snapshot.eTag())
+                    .lastModified(snapshot.lastModified())
+                    .cacheControl(CacheControl.noCache());
+            if (!acceptsJson(request.getHeader(HttpHeaders.ACCEPT))) {
+                // CBOR / Smile clients still get a negotiated body
+                List<Rule> rules = ruleService.getRules();
+                return response.body(Map.of(
+                        "rules", rules,
+                        "count", rules.size()
+                ));
+            }
+
+            response.contentType(MediaType.APPLICATION_JSON).varyBy(HttpHeaders.ACCEPT_ENCODING);
+            String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            if (snapshot.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+            }
+            return response.body(snapshot.json());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private boolean acceptsJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @GetMapping("/costs")
+    public ResponseEntity<?> getRuleCosts() {
         try {
-            List<Rule> rules = ruleService.getRules();
+            List<RuleService.RuleCostReport> costs = ruleService.getRuleCosts();
             return ResponseEntity.ok(Map.of(
-                    "rules", rules,
-                    "count", rules.size()
+                    "costs", costs,
+                    "count", costs.size()
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
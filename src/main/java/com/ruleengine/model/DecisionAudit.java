@@ -0,0 +1,37 @@
+package com.ruleengine.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Row written by JdbcAuditSink; mapped so the table is created with the rest of the schema
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "decision_audit", indexes = @Index(name = "idx_decision_audit_rule", columnList = "rule_id, decided_at"))
+public class DecisionAudit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rule_id", nullable = false)
+    private Long ruleId;
+
+    @Column(name = "inputs_hash", nullable = false)
+    private Long inputsHash;
+
+    @Column(nullable = false)
+    private boolean result;
+
+    @Column(name = "decided_at", nullable = false)
+    private LocalDateTime decidedAt;
+
+    // Space-separated ids of the matching rules for a whole-rule-set decision (rule_id 0), else null
+    @Column(name = "matched_rule_ids", columnDefinition = "text")
+    private String matchedRuleIds;
+}
@@ -0,0 +1,49 @@
+package com.ruleengine.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "ordered_rule_sets")
+public class OrderedRuleSet {
+
+    public enum Mode {
+        FIRST_MATCH, // only the first matching rule, in member order
+        ALL_MATCH    // every matching rule
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Mode mode;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "ordered_rule_set_members", joinColumns = @JoinColumn(name = "rule_set_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "rule_id", nullable = false)
+    private List<Long> ruleIds = new ArrayList<>(); // member rules in priority order
+
+    @JsonIgnore
+    @Column(length = 16_000_000)
+    private byte[] compiledTree; // serialized DecisionTree, null when the set is evaluated rule by rule
+
+    private LocalDateTime compiledAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -21,10 +21,18 @@ public class Rule {
     @Column(nullable = false)
     private String ruleName;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    // Node rows are not removed with the rule; NodeCompactionJob reclaims them once nothing reaches them
+    @OneToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinColumn(name = "root_node_id")
     private Node rootNode; // Reference to the root node of the AST
 
     @Column(nullable = false)
     private LocalDateTime createdAt; // Timestamp for rule creation
+
+    @Embedded
+    private RuleCost cost; // Recomputed whenever the tree changes; null for rules stored before scoring
+
+    public Rule(Long id, String ruleName, Node rootNode, LocalDateTime createdAt) {
+        this(id, ruleName, rootNode, createdAt, null);
+    }
 }
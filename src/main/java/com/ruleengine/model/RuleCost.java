@@ -0,0 +1,25 @@
+package com.ruleengine.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// Static evaluation cost of a rule's AST, computed by CostModel whenever the tree changes.
+// score is the sum of the node weights, i.e. the work of one full evaluation.
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class RuleCost {
+
+    @Column(name = "cost_score")
+    private Integer score;
+
+    @Column(name = "cost_depth")
+    private Integer depth;
+
+    @Column(name = "cost_node_count")
+    private Integer nodeCount;
+}
@@ -0,0 +1,13 @@
+package com.ruleengine.repository;
+
+import com.ruleengine.model.OrderedRuleSet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderedRuleSetRepository extends JpaRepository<OrderedRuleSet, Long> {
+
+    List<OrderedRuleSet> findByRuleIdsContaining(Long ruleId);
+}
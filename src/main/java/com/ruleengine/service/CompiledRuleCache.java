@@ -0,0 +1,296 @@
+package com.ruleengine.service;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.OffHeapRuleStore;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.compiler.ShardedRuleSet;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Rule;
+import com.ruleengine.repository.RuleRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Compiled form of every stored rule. Loaded lazily on first use and kept current
+// one rule at a time from RuleChangedEvents instead of reloading the whole table.
+//
+// By default the compiled rules are heap objects (with truth tables and the subtree slices
+// that incremental recompilation splices). With rules.store.off-heap=true they are encoded
+// into an OffHeapRuleStore once loaded and every evaluation path reads the programs from it:
+// the heap keeps only the store's id -> offset index, so a large rule set adds little to GC
+// work. A rule change builds the next store, copying the unchanged programs, and callers
+// that need a CompiledRule get a short-lived copy decoded from the store.
+//
+// When rules.snapshot.path is set, the last compiled rule set is kept in a memory-mapped
+// snapshot file. On startup that snapshot serves single-rule evaluations while the rules
+// are reloaded from the database in the background. Off-heap, the rewritten snapshot file is
+// then the serving store; otherwise the heap copy takes over and the snapshot is released.
+@Slf4j
+@Service
+public class CompiledRuleCache {
+
+    private final RuleRepository ruleRepository;
+    private final RuleCompiler ruleCompiler;
+    private final RuleCostPolicy costPolicy;
+    private final int shardCount;
+    private final String snapshotPath;
+    private final boolean offHeap;
+    private final Map<Long, CompiledRule> compiled = new ConcurrentHashMap<>();
+    // Why a stored rule is not in compiled, reported instead of "Rule not found"
+    private final Map<Long, String> rejected = new ConcurrentHashMap<>();
+    private final Set<Long> changedSinceSnapshot = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded;
+    private volatile ShardedRuleSet ruleSet;
+    private volatile OffHeapRuleStore snapshot;
+    private volatile OffHeapRuleStore store; // the serving copy when off-heap, once loaded
+
+    public CompiledRuleCache(RuleRepository ruleRepository, RuleCompiler ruleCompiler, RuleCostPolicy costPolicy,
+                             int shardsPerCore, String snapshotPath) {
+        this(ruleRepository, ruleCompiler, costPolicy, shardsPerCore, snapshotPath, false);
+    }
+
+    @Autowired
+    public CompiledRuleCache(RuleRepository ruleRepository,
+                             RuleCompiler ruleCompiler,
+                             RuleCostPolicy costPolicy,
+                             @Value("${rules.parallel.shards-per-core:4}") int shardsPerCore,
+                             @Value("${rules.snapshot.path:}") String snapshotPath,
+                             @Value("${rules.store.off-heap:false}") boolean offHeap) {
+        this.ruleRepository = ruleRepository;
+        this.ruleCompiler = ruleCompiler;
+        this.costPolicy = costPolicy;
+        this.shardCount = Runtime.getRuntime().availableProcessors() * Math.max(1, shardsPerCore);
+        this.snapshotPath = snapshotPath;
+        this.offHeap = offHeap;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmStart() {
+        if (snapshotPath.isBlank()) {
+            return;
+        }
+        Path file = Path.of(snapshotPath);
+        if (Files.exists(file)) {
+            try {
+                snapshot = OffHeapRuleStore.open(file);
+                log.info("Serving {} rules from snapshot {} until the database load completes",
+                        snapshot.size(), file);
+            } catch (IOException | RuntimeException e) {
+                // A truncated or damaged snapshot only costs the warm start
+                log.warn("Ignoring unreadable rule snapshot {}: {}", file, e.getMessage());
+            }
+        }
+        CompletableFuture.runAsync(() -> {
+            ensureLoaded();
+            writeSnapshot();
+        });
+    }
+
+    @PreDestroy
+    public void writeSnapshot() {
+        if (snapshotPath.isBlank() || !loaded) {
+            return;
+        }
+        synchronized (this) {
+            try {
+                OffHeapRuleStore written = offHeap
+                        ? store.writeTo(Path.of(snapshotPath))
+                        : OffHeapRuleStore.write(compiled.values(), Path.of(snapshotPath));
+                log.info("Wrote snapshot of {} compiled rules to {}", written.size(), snapshotPath);
+                if (offHeap) {
+                    store = written; // serve from the mapped file
+                }
+                snapshot = null; // the loaded rules take over from here
+                changedSinceSnapshot.clear();
+            } catch (IOException e) {
+                log.warn("Failed to write rule snapshot {}: {}", snapshotPath, e.getMessage());
+            }
+        }
+    }
+
+    public boolean evaluate(Long ruleId, Map<String, Object> data) {
+        OffHeapRuleStore warm = snapshot;
+        if (!loaded && warm != null && warm.contains(ruleId) && !changedSinceSnapshot.contains(ruleId)) {
+            return warm.evaluate(ruleId, data);
+        }
+        if (offHeap) {
+            OffHeapRuleStore current = getStore();
+            if (!current.contains(ruleId)) {
+                throw new CustomException(rejected.getOrDefault(ruleId, "Rule not found"));
+            }
+            return current.evaluate(ruleId, data);
+        }
+        return get(ruleId).evaluate(data);
+    }
+
+    // Off-heap this decodes a fresh copy on every call, without a truth table
+    public CompiledRule get(Long ruleId) {
+        ensureLoaded();
+        CompiledRule rule;
+        if (offHeap) {
+            OffHeapRuleStore current = store;
+            rule = current.contains(ruleId) ? current.load(ruleId, 0) : null;
+        } else {
+            rule = compiled.get(ruleId);
+        }
+        if (rule == null) {
+            throw new CustomException(rejected.getOrDefault(ruleId, "Rule not found"));
+        }
+        return rule;
+    }
+
+    // The serving store in off-heap mode, null otherwise
+    public OffHeapRuleStore getStore() {
+        ensureLoaded();
+        return store;
+    }
+
+    // Every compiled rule, one at a time (decoded one by one when off-heap)
+    public void forEachRule(Consumer<CompiledRule> action) {
+        OffHeapRuleStore current = getStore();
+        if (current == null) {
+            compiled.values().forEach(action);
+            return;
+        }
+        for (long ruleId : current.ruleIds()) {
+            action.accept(current.load(ruleId, 0));
+        }
+    }
+
+    // Off-heap the set is decoded on each call and not cached; /evaluateAll uses getStore instead
+    public ShardedRuleSet getRuleSet() {
+        OffHeapRuleStore offHeapStore = getStore();
+        if (offHeapStore != null) {
+            List<CompiledRule> rules = new ArrayList<>(offHeapStore.size());
+            forEachRule(rules::add);
+            return ShardedRuleSet.partition(rules, shardCount);
+        }
+        ShardedRuleSet current = ruleSet;
+        if (current == null) {
+            synchronized (this) {
+                ensureLoaded();
+                current = ruleSet;
+                if (current == null) {
+                    current = ShardedRuleSet.partition(new ArrayList<>(compiled.values()), shardCount);
+                    ruleSet = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRuleChanged(RuleChangedEvent event) {
+        changedSinceSnapshot.add(event.ruleId());
+        synchronized (this) {
+            if (!loaded) {
+                return; // picked up by the initial load
+            }
+            if (offHeap) {
+                Optional<Rule> rule = event.type() == RuleChangedEvent.Type.DELETED
+                        ? Optional.empty()
+                        : ruleRepository.findById(event.ruleId());
+                CompiledRule recompiled = rule.map(this::compile).orElse(null);
+                if (rule.isEmpty()) {
+                    rejected.remove(event.ruleId());
+                }
+                store = recompiled != null
+                        ? store.withChanges(List.of(recompiled), List.of())
+                        : store.withChanges(List.of(), List.of(event.ruleId()));
+                return;
+            }
+            if (event.type() == RuleChangedEvent.Type.DELETED) {
+                compiled.remove(event.ruleId());
+                rejected.remove(event.ruleId());
+            } else {
+                Optional<Rule> rule = ruleRepository.findById(event.ruleId());
+                CompiledRule previous = compiled.get(event.ruleId());
+                if (rule.isPresent() && previous != null && event.changedNodeIds() != null) {
+                    // Structural diff: only the changed subtrees are compiled again
+                    try {
+                        compiled.put(event.ruleId(), ruleCompiler.recompile(previous, rule.get(), event.changedNodeIds()));
+                    } catch (RuntimeException | StackOverflowError e) {
+                        log.warn("Compiling rule {} in full after incremental recompile failed: {}",
+                                event.ruleId(), e.toString());
+                        put(rule.get());
+                    }
+                } else {
+                    rule.ifPresentOrElse(this::put, () -> {
+                        compiled.remove(event.ruleId());
+                        rejected.remove(event.ruleId());
+                    });
+                }
+            }
+            ruleSet = null;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                if (offHeap) {
+                    List<CompiledRule> rules = new ArrayList<>();
+                    for (Rule rule : ruleRepository.findAll()) {
+                        CompiledRule compiledRule = compile(rule);
+                        if (compiledRule != null) {
+                            rules.add(compiledRule);
+                        }
+                    }
+                    store = OffHeapRuleStore.build(rules); // the heap copies are garbage from here
+                    log.info("Compiled {} rules into an off-heap store", store.size());
+                } else {
+                    ruleRepository.findAll().forEach(this::put);
+                    log.info("Compiled {} rules", compiled.size());
+                }
+                loaded = true;
+            }
+        }
+    }
+
+    // Rules over the evaluation budget (e.g. stored before the admission limits existed) are
+    // not compiled, so one oversized rule cannot hold up the load or every /evaluateAll call
+    private void put(Rule rule) {
+        CompiledRule compiledRule = compile(rule);
+        if (compiledRule != null) {
+            compiled.put(rule.getId(), compiledRule);
+        } else {
+            compiled.remove(rule.getId());
+        }
+    }
+
+    // Null, with the reason recorded in rejected, when the rule cannot be compiled
+    private CompiledRule compile(Rule rule) {
+        try {
+            costPolicy.checkBudget(rule);
+            CompiledRule compiledRule = ruleCompiler.compile(rule);
+            rejected.remove(rule.getId());
+            return compiledRule;
+        } catch (RuntimeException | StackOverflowError e) {
+            String reason = e instanceof CustomException ? e.getMessage() : "Rule cannot be compiled";
+            rejected.put(rule.getId(), reason);
+            log.warn("Skipping rule {} that cannot be compiled: {}", rule.getId(),
+                    e instanceof CustomException ? reason : e.toString());
+            return null;
+        }
+    }
+}
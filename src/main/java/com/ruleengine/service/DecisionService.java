@@ -0,0 +1,212 @@
+package com.ruleengine.service;
+
+import com.ruleengine.audit.DecisionAuditLog;
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.exception.CustomException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Materialized (entity, rule) -> result table. Each entity keeps its attributes and the set
+// of rules it currently matches (every other rule is a non-match). An attribute -> rules
+// index, derived from the attributes each compiled rule reads, limits re-evaluation after
+// an attribute change to the rules that depend on it. A rule that cannot be evaluated
+// against an entity (e.g. a missing attribute) counts as no match. Every re-evaluation is
+// audited, whether or not it changed the stored decision.
+@Service
+@RequiredArgsConstructor
+public class DecisionService {
+
+    private final CompiledRuleCache compiledRuleCache;
+    private final DecisionAuditLog auditLog;
+
+    private final Map<String, EntityState> entities = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> rulesByAttribute = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> attributesByRule = new ConcurrentHashMap<>();
+    private volatile boolean indexed;
+
+    // Replace all attributes of an entity and return the decisions that changed
+    public Map<Long, Boolean> putEntity(String entityId, Map<String, Object> attributes) {
+        validateEntity(entityId, attributes);
+        ensureIndexed();
+        EntityState state = entities.computeIfAbsent(entityId, id -> new EntityState());
+        synchronized (state) {
+            Collection<Long> affected;
+            if (!state.evaluated) {
+                affected = attributesByRule.keySet();
+                state.evaluated = true;
+            } else {
+                Set<String> changedAttributes = new HashSet<>(state.attributes.keySet());
+                changedAttributes.addAll(attributes.keySet());
+                changedAttributes.removeIf(a -> Objects.equals(state.attributes.get(a), attributes.get(a)));
+                affected = dependentRules(changedAttributes);
+            }
+            state.attributes.clear();
+            state.attributes.putAll(attributes);
+            return reevaluate(state, affected);
+        }
+    }
+
+    // Apply changed attributes and re-evaluate only the rules that read them
+    public Map<Long, Boolean> updateEntity(String entityId, Map<String, Object> changes) {
+        validateEntity(entityId, changes);
+        ensureIndexed();
+        EntityState state = entities.get(entityId);
+        if (state == null) {
+            throw new CustomException("Entity not found: " + entityId);
+        }
+
+        synchronized (state) {
+            Set<String> changedAttributes = new HashSet<>();
+            for (Map.Entry<String, Object> change : changes.entrySet()) {
+                Object previous = state.attributes.put(change.getKey(), change.getValue());
+                if (!Objects.equals(previous, change.getValue())) {
+                    changedAttributes.add(change.getKey());
+                }
+            }
+            return reevaluate(state, dependentRules(changedAttributes));
+        }
+    }
+
+    public List<Long> getMatchingRuleIds(String entityId) {
+        EntityState state = entities.get(entityId);
+        if (state == null) {
+            throw new CustomException("Entity not found: " + entityId);
+        }
+        synchronized (state) {
+            List<Long> matching = new ArrayList<>(state.matching);
+            Collections.sort(matching);
+            return matching;
+        }
+    }
+
+    public void deleteEntity(String entityId) {
+        if (entities.remove(entityId) == null) {
+            throw new CustomException("Entity not found: " + entityId);
+        }
+    }
+
+    // Runs after CompiledRuleCache has recompiled the rule
+    @Order(10)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRuleChanged(RuleChangedEvent event) {
+        if (!indexed) {
+            return;
+        }
+        Long ruleId = event.ruleId();
+        unindex(ruleId);
+
+        CompiledRule rule = null;
+        if (event.type() != RuleChangedEvent.Type.DELETED) {
+            try {
+                rule = compiledRuleCache.get(ruleId);
+                index(rule);
+            } catch (CustomException e) {
+                rule = null; // deleted or not compilable
+            }
+        }
+
+        for (EntityState state : entities.values()) {
+            synchronized (state) {
+                if (rule == null) {
+                    state.matching.remove(ruleId);
+                } else {
+                    boolean result = matches(rule, state.attributes);
+                    auditLog.record(ruleId, state.attributes, result);
+                    if (result) {
+                        state.matching.add(ruleId);
+                    } else {
+                        state.matching.remove(ruleId);
+                    }
+                }
+            }
+        }
+    }
+
+    private Set<Long> dependentRules(Set<String> attributes) {
+        Set<Long> rules = new HashSet<>();
+        for (String attribute : attributes) {
+            rules.addAll(rulesByAttribute.getOrDefault(attribute, Set.of()));
+        }
+        return rules;
+    }
+
+    private Map<Long, Boolean> reevaluate(EntityState state, Collection<Long> ruleIds) {
+        Map<Long, Boolean> flipped = new TreeMap<>();
+        long inputsHash = DecisionAuditLog.inputsHash(state.attributes);
+        for (Long ruleId : ruleIds) {
+            CompiledRule rule;
+            try {
+                rule = compiledRuleCache.get(ruleId);
+            } catch (CustomException e) {
+                continue; // removed concurrently
+            }
+            boolean result = matches(rule, state.attributes);
+            auditLog.record(ruleId, inputsHash, result);
+            boolean changed = result ? state.matching.add(ruleId) : state.matching.remove(ruleId);
+            if (changed) {
+                flipped.put(ruleId, result);
+            }
+        }
+        return flipped;
+    }
+
+    private static boolean matches(CompiledRule rule, Map<String, Object> attributes) {
+        try {
+            return rule.evaluate(attributes);
+        } catch (CustomException e) {
+            return false;
+        }
+    }
+
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        synchronized (this) {
+            if (!indexed) {
+                compiledRuleCache.forEachRule(this::index);
+                indexed = true;
+            }
+        }
+    }
+
+    private void index(CompiledRule rule) {
+        attributesByRule.put(rule.getRuleId(), rule.getAttributes());
+        for (String attribute : rule.getAttributes()) {
+            rulesByAttribute.computeIfAbsent(attribute, a -> ConcurrentHashMap.newKeySet()).add(rule.getRuleId());
+        }
+    }
+
+    private void unindex(Long ruleId) {
+        Set<String> attributes = attributesByRule.remove(ruleId);
+        if (attributes != null) {
+            for (String attribute : attributes) {
+                Set<Long> rules = rulesByAttribute.get(attribute);
+                if (rules != null) {
+                    rules.remove(ruleId);
+                }
+            }
+        }
+    }
+
+    private void validateEntity(String entityId, Map<String, Object> attributes) {
+        if (entityId == null || entityId.isBlank()) {
+            throw new CustomException("Entity id is required");
+        }
+        if (attributes == null || attributes.isEmpty()) {
+            throw new CustomException("Entity attributes cannot be empty");
+        }
+    }
+
+    private static final class EntityState {
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final Set<Long> matching = new HashSet<>();
+        private boolean evaluated;
+    }
+}
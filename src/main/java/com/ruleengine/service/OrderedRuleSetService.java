@@ -0,0 +1,213 @@
+package com.ruleengine.service;
+
+import com.ruleengine.audit.DecisionAuditLog;
+import com.ruleengine.compiler.DecisionTree;
+import com.ruleengine.compiler.DecisionTreeCompiler;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.OrderedRuleSet;
+import com.ruleengine.model.Rule;
+import com.ruleengine.repository.OrderedRuleSetRepository;
+import com.ruleengine.repository.RuleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ordered rule sets evaluated through a compiled DecisionTree. The tree is stored with the
+// set so a restart does not recompile it, cached in memory, and rebuilt whenever one of the
+// member rules changes. Sets whose tree would be too large are evaluated rule by rule.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderedRuleSetService {
+
+    private final OrderedRuleSetRepository ruleSetRepository;
+    private final RuleRepository ruleRepository;
+    private final DecisionTreeCompiler treeCompiler;
+    private final CompiledRuleCache compiledRuleCache;
+    private final RuleService ruleService;
+    private final DecisionAuditLog auditLog;
+
+    private final Map<Long, CompiledSet> compiled = new ConcurrentHashMap<>();
+
+    private record CompiledSet(OrderedRuleSet.Mode mode, List<Long> ruleIds, DecisionTree tree) {
+    }
+
+    public OrderedRuleSet createRuleSet(String name, OrderedRuleSet.Mode mode, List<Long> ruleIds) {
+        validateMembers(ruleIds);
+        OrderedRuleSet ruleSet = new OrderedRuleSet();
+        ruleSet.setName(name);
+        ruleSet.setMode(mode);
+        ruleSet.setRuleIds(new ArrayList<>(ruleIds));
+        ruleSet.setCreatedAt(LocalDateTime.now());
+        return recompile(ruleSet);
+    }
+
+    public OrderedRuleSet modifyRuleSet(Long ruleSetId, OrderedRuleSet.Mode mode, List<Long> ruleIds) {
+        OrderedRuleSet ruleSet = ruleSetRepository.findById(ruleSetId)
+                .orElseThrow(() -> new CustomException("Rule set not found"));
+        validateMembers(ruleIds);
+        ruleSet.setMode(mode);
+        ruleSet.setRuleIds(new ArrayList<>(ruleIds));
+        return recompile(ruleSet);
+    }
+
+    public List<OrderedRuleSet> getRuleSets() {
+        return ruleSetRepository.findAll();
+    }
+
+    public void deleteRuleSet(Long ruleSetId) {
+        if (!ruleSetRepository.existsById(ruleSetId)) {
+            throw new CustomException("Rule set not found");
+        }
+        ruleSetRepository.deleteById(ruleSetId);
+        compiled.remove(ruleSetId);
+    }
+
+    // Ids of the matching member rules in priority order; at most one for FIRST_MATCH
+    public List<Long> evaluateRuleSet(Long ruleSetId, Map<String, Object> userData) {
+        ruleService.validateUserData(userData);
+        CompiledSet set = load(ruleSetId);
+        List<Long> matching;
+        if (set.tree() != null) {
+            matching = set.tree().evaluate(userData);
+        } else {
+            matching = new ArrayList<>();
+            for (Long ruleId : set.ruleIds()) {
+                if (compiledRuleCache.evaluate(ruleId, userData)) {
+                    matching.add(ruleId);
+                    if (set.mode() == OrderedRuleSet.Mode.FIRST_MATCH) {
+                        break;
+                    }
+                }
+            }
+        }
+        audit(set, matching, userData);
+        return matching;
+    }
+
+    // Records every member the evaluation decided: all of them for ALL_MATCH, for FIRST_MATCH
+    // the members up to the match (all of them when nothing matched), the earlier ones as false.
+    // matching is in priority order, a subsequence of the set's members.
+    private void audit(CompiledSet set, List<Long> matching, Map<String, Object> userData) {
+        long inputsHash = DecisionAuditLog.inputsHash(userData);
+        int next = 0;
+        for (Long ruleId : set.ruleIds()) {
+            boolean result = next < matching.size() && matching.get(next).equals(ruleId);
+            auditLog.record(ruleId, inputsHash, result);
+            if (result) {
+                if (set.mode() == OrderedRuleSet.Mode.FIRST_MATCH) {
+                    return;
+                }
+                next++;
+            }
+        }
+    }
+
+    public Map<String, Object> describeTree(Long ruleSetId) {
+        DecisionTree tree = load(ruleSetId).tree();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("compiled", tree != null);
+        if (tree != null) {
+            stats.put("nodes", tree.nodeCount());
+            stats.put("conditions", tree.getTests().length);
+            stats.put("maxDepth", tree.maxDepth());
+            stats.put("expectedTests", tree.expectedTests());
+            stats.put("sequentialTests", tree.getSequentialTests());
+        }
+        return stats;
+    }
+
+    // Runs after CompiledRuleCache has recompiled the rule. Deleted rules leave their sets.
+    @Order(20)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onRuleChanged(RuleChangedEvent event) {
+        if (event.type() == RuleChangedEvent.Type.CREATED) {
+            return;
+        }
+        for (OrderedRuleSet ruleSet : ruleSetRepository.findByRuleIdsContaining(event.ruleId())) {
+            if (event.type() == RuleChangedEvent.Type.DELETED) {
+                ruleSet.getRuleIds().removeIf(event.ruleId()::equals);
+            }
+            recompile(ruleSet);
+        }
+    }
+
+    private CompiledSet load(Long ruleSetId) {
+        CompiledSet set = compiled.get(ruleSetId);
+        if (set != null) {
+            return set;
+        }
+        synchronized (this) {
+            set = compiled.get(ruleSetId);
+            if (set != null) {
+                return set;
+            }
+            OrderedRuleSet ruleSet = ruleSetRepository.findById(ruleSetId)
+                    .orElseThrow(() -> new CustomException("Rule set not found"));
+            if (ruleSet.getCompiledTree() == null) {
+                recompile(ruleSet);
+                return compiled.get(ruleSetId);
+            }
+            DecisionTree tree;
+            try {
+                tree = DecisionTree.fromBytes(ruleSet.getCompiledTree());
+            } catch (CustomException e) {
+                log.warn("Recompiling rule set {}: {}", ruleSetId, e.getMessage());
+                recompile(ruleSet);
+                return compiled.get(ruleSetId);
+            }
+            set = new CompiledSet(ruleSet.getMode(), List.copyOf(ruleSet.getRuleIds()), tree);
+            compiled.put(ruleSetId, set);
+            return set;
+        }
+    }
+
+    private synchronized OrderedRuleSet recompile(OrderedRuleSet ruleSet) {
+        Map<Long, Rule> rulesById = new HashMap<>();
+        for (Rule rule : ruleRepository.findAllById(ruleSet.getRuleIds())) {
+            rulesById.put(rule.getId(), rule);
+        }
+        ruleSet.getRuleIds().removeIf(id -> !rulesById.containsKey(id));
+        List<Rule> members = new ArrayList<>();
+        for (Long ruleId : ruleSet.getRuleIds()) {
+            members.add(rulesById.get(ruleId));
+        }
+
+        DecisionTree tree = null;
+        try {
+            tree = treeCompiler.compile(members, ruleSet.getMode());
+            ruleSet.setCompiledTree(tree.toBytes());
+        } catch (CustomException e) {
+            ruleSet.setCompiledTree(null);
+            log.warn("Rule set {} will be evaluated rule by rule: {}", ruleSet.getName(), e.getMessage());
+        }
+        ruleSet.setCompiledAt(LocalDateTime.now());
+        OrderedRuleSet saved = ruleSetRepository.save(ruleSet);
+        compiled.put(saved.getId(), new CompiledSet(saved.getMode(), List.copyOf(saved.getRuleIds()), tree));
+        return saved;
+    }
+
+    private void validateMembers(List<Long> ruleIds) {
+        if (ruleIds == null || ruleIds.isEmpty()) {
+            throw new CustomException("A rule set needs at least one rule");
+        }
+        if (new HashSet<>(ruleIds).size() != ruleIds.size()) {
+            throw new CustomException("A rule can appear only once in a rule set");
+        }
+        for (Long ruleId : ruleIds) {
+            if (!ruleRepository.existsById(ruleId)) {
+                throw new CustomException("Rule not found: " + ruleId);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ruleengine.service;
+
+import java.util.Set;
+
+// Published by RuleService after a rule has been created, modified or deleted. For
+// modifications applied as a structural diff, changedNodeIds lists the stored nodes whose
+// subtree changed (see TreeDiff); null means the whole tree has to be treated as new.
+// Listeners run once the change is committed, so they never see (or cache) uncommitted rows
+// and cannot roll the change back.
+public record RuleChangedEvent(Long ruleId, Type type, Set<Long> changedNodeIds) {
+
+    public enum Type {
+        CREATED, MODIFIED, DELETED
+    }
+
+    public RuleChangedEvent(Long ruleId, Type type) {
+        this(ruleId, type, null);
+    }
+}
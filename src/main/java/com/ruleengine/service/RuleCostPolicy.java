@@ -0,0 +1,82 @@
+package com.ruleengine.service;
+
+import com.ruleengine.compiler.CostModel;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Rule;
+import com.ruleengine.model.RuleCost;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Admission limits for rule trees and the per-evaluation budget. Rules over a limit are
+// rejected at create / modify time, so one pathological rule cannot dominate tail latency.
+// The budget (in CostModel weights) also bounds rules stored before the limits existed;
+// keep it at least max-score so every admitted rule can be evaluated.
+@Getter
+@Component
+public class RuleCostPolicy {
+
+    private static final Pattern LOGICAL_OPERATOR = Pattern.compile("\\b(?:AND|OR)\\b");
+
+    private final int maxDepth;
+    private final int maxNodes;
+    private final int maxScore;
+    private final int evaluationBudget;
+
+    public RuleCostPolicy(@Value("${rules.cost.max-depth:128}") int maxDepth,
+                          @Value("${rules.cost.max-nodes:1000}") int maxNodes,
+                          @Value("${rules.cost.max-score:2000}") int maxScore,
+                          @Value("${rules.cost.evaluation-budget:5000}") int evaluationBudget) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxScore = maxScore;
+        this.evaluationBudget = evaluationBudget;
+    }
+
+    // Cheap bounds on the raw string, checked before the recursive parser sees it
+    public void checkExpression(String ruleString) {
+        int nesting = 0;
+        int maxNesting = 0;
+        for (int i = 0; i < ruleString.length(); i++) {
+            char c = ruleString.charAt(i);
+            if (c == '(') maxNesting = Math.max(maxNesting, ++nesting);
+            if (c == ')') nesting--;
+        }
+        if (maxNesting > maxDepth) {
+            throw new CustomException("Rule nesting exceeds the maximum depth of " + maxDepth);
+        }
+        int operators = 0;
+        Matcher matcher = LOGICAL_OPERATOR.matcher(ruleString);
+        while (matcher.find()) {
+            operators++;
+        }
+        if (2L * operators + 1 > maxNodes) {
+            throw new CustomException("Rule exceeds the maximum of " + maxNodes + " nodes");
+        }
+    }
+
+    // For stored rules: the cost saved with the rule, or the tree measured up to the budget
+    public void checkBudget(Rule rule) {
+        RuleCost cost = rule.getCost() != null && rule.getCost().getScore() != null
+                ? rule.getCost()
+                : CostModel.measure(rule.getRootNode(), evaluationBudget);
+        if (cost.getScore() > evaluationBudget) {
+            throw new CustomException("Rule exceeds the evaluation budget of " + evaluationBudget);
+        }
+    }
+
+    public void admit(RuleCost cost) {
+        if (cost.getDepth() > maxDepth) {
+            throw new CustomException("Rule depth " + cost.getDepth() + " exceeds the maximum of " + maxDepth);
+        }
+        if (cost.getNodeCount() > maxNodes) {
+            throw new CustomException("Rule has " + cost.getNodeCount() + " nodes, the maximum is " + maxNodes);
+        }
+        if (cost.getScore() > maxScore) {
+            throw new CustomException("Rule cost " + cost.getScore() + " exceeds the maximum of " + maxScore);
+        }
+    }
+}
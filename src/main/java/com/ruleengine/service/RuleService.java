@@ -1,35 +1,48 @@
 package com.ruleengine.service;
 
+import com.ruleengine.audit.DecisionAuditLog;
+import com.ruleengine.compiler.Condition;
+import com.ruleengine.compiler.CostModel;
+import com.ruleengine.compiler.OffHeapRuleStore;
+import com.ruleengine.compiler.TreeDiff;
 import com.ruleengine.exception.CustomException;
 import com.ruleengine.model.Node;
 import com.ruleengine.model.Rule;
+import com.ruleengine.model.RuleCost;
 import com.ruleengine.repository.RuleRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 public class RuleService {
 
     private final RuleRepository ruleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CompiledRuleCache compiledRuleCache;
+    private final RuleSetEvaluator ruleSetEvaluator;
+    private final RuleCostPolicy costPolicy;
+    private final DecisionAuditLog auditLog;
     private static final Set<String> VALID_DEPARTMENTS = new HashSet<>(Arrays.asList("Sales", "Marketing", "IT", "HR"));
-    private static final Pattern CONDITION_PATTERN =
-            Pattern.compile("(\\w+)\\s*([<>=])\\s*('[^']*'|\\d+(\\.\\d+)?)");
 
     // Create a rule from the input string
     public Rule createRule(String ruleString, String ruleName) {
         validateRuleString(ruleString);
         Node astRoot = parseRuleStringToAST(ruleString);
+        RuleCost cost = admit(astRoot);
         Rule rule = new Rule();
         rule.setRuleName(ruleName);
         rule.setRootNode(astRoot);
+        rule.setCost(cost);
         rule.setCreatedAt(LocalDateTime.now());
-        return ruleRepository.save(rule);
+        Rule saved = ruleRepository.save(rule);
+        eventPublisher.publishEvent(new RuleChangedEvent(saved.getId(), RuleChangedEvent.Type.CREATED));
+        return saved;
     }
 
     private void validateRuleString(String ruleString) {
@@ -49,6 +62,7 @@ public class RuleService {
         if (balance != 0) {
             throw new CustomException("Unmatched parentheses in rule");
         }
+        costPolicy.checkExpression(ruleString);
 
         // Validate operators
         if (!ruleString.contains("AND") && !ruleString.contains("OR")) {
@@ -56,6 +70,12 @@ public class RuleService {
         }
     }
 
+    private RuleCost admit(Node root) {
+        RuleCost cost = CostModel.measure(root, costPolicy.getMaxScore());
+        costPolicy.admit(cost);
+        return cost;
+    }
+
     private Node parseRuleStringToAST(String ruleString) {
         ruleString = ruleString.trim();
 
@@ -123,38 +143,58 @@ public class RuleService {
         while (condition.startsWith("(") && condition.endsWith(")")) {
             condition = condition.substring(1, condition.length() - 1).trim();
         }
-        Matcher matcher = CONDITION_PATTERN.matcher(condition.trim());
-        if (!matcher.matches()) {
-            throw new CustomException("Invalid condition format: " + condition);
-        }
-
-        String attribute = matcher.group(1);
-        String operator = matcher.group(2);
-        String value = matcher.group(3);
+        Condition parsed = Condition.parse(condition);
 
         // Validate department values
-        if (attribute.equals("department")) {
-            String deptValue = value.replace("'", "");
-            if (!VALID_DEPARTMENTS.contains(deptValue)) {
-                throw new CustomException("Invalid department value: " + deptValue);
+        if (parsed.getAttribute().equals("department")) {
+            for (String deptValue : parsed.getValues()) {
+                if (!VALID_DEPARTMENTS.contains(deptValue)) {
+                    throw new CustomException("Invalid department value: " + deptValue);
+                }
             }
         }
 
         return new Node("operand", null, null, condition.trim());
     }
 
+    // Evaluates the rule's compiled program (see CompiledRuleCache), so equality OR-chains are
+    // single set lookups and the evaluation budget was checked once, when the rule was compiled
     public boolean evaluateRule(Long ruleId, Map<String, Object> userData) {
-        Optional<Rule> ruleOptional = ruleRepository.findById(ruleId);
-        if (ruleOptional.isEmpty()) {
-            throw new CustomException("Rule not found");
+        validateUserData(userData);
+        boolean result = compiledRuleCache.evaluate(ruleId, userData);
+        auditLog.record(ruleId, userData, result);
+        return result;
+    }
+
+    // Evaluate the data against the given rules; bit i is the result for ruleIds[i]
+    public BitSet evaluateRules(List<Long> ruleIds, Map<String, Object> userData) {
+        validateUserData(userData);
+        long inputsHash = DecisionAuditLog.inputsHash(userData);
+        BitSet results = new BitSet(ruleIds.size());
+        for (int i = 0; i < ruleIds.size(); i++) {
+            boolean result = compiledRuleCache.evaluate(ruleIds.get(i), userData);
+            auditLog.record(ruleIds.get(i), inputsHash, result);
+            if (result) {
+                results.set(i);
+            }
         }
+        return results;
+    }
 
+    // Evaluate the data against every stored rule and return the ids of the matching ones. The
+    // whole evaluation is audited as one record listing the matches (every other rule evaluated
+    // to false), enqueued here on the request thread rather than from the pool's workers.
+    public List<Long> evaluateAllRules(Map<String, Object> userData) {
         validateUserData(userData);
-        Node astRoot = ruleOptional.get().getRootNode();
-        return evaluateNode(astRoot, userData);
+        OffHeapRuleStore store = compiledRuleCache.getStore();
+        List<Long> matching = store != null
+                ? ruleSetEvaluator.matchingRuleIds(store, userData)
+                : ruleSetEvaluator.matchingRuleIds(compiledRuleCache.getRuleSet(), userData);
+        auditLog.recordRuleSet(userData, matching);
+        return matching;
     }
 
-    private void validateUserData(Map<String, Object> userData) {
+    void validateUserData(Map<String, Object> userData) {
         if (userData == null || userData.isEmpty()) {
             throw new CustomException("User data cannot be empty");
         }
@@ -182,70 +222,6 @@ public class RuleService {
         }
     }
 
-    private boolean evaluateNode(Node node, Map<String, Object> data) {
-        if (node == null) return true;
-
-        if ("operand".equals(node.getType())) {
-            return evaluateOperand(node.getValue(), data);
-        }
-
-        boolean leftResult = evaluateNode(node.getLeft(), data);
-        boolean rightResult = evaluateNode(node.getRight(), data);
-
-        return switch (node.getValue()) {
-            case "AND" -> leftResult && rightResult;
-            case "OR" -> leftResult || rightResult;
-            default -> throw new CustomException("Unknown operator: " + node.getValue());
-        };
-    }
-
-    private boolean evaluateOperand(String condition, Map<String, Object> data) {
-        Matcher matcher = CONDITION_PATTERN.matcher(condition);
-        if (!matcher.matches()) {
-            throw new CustomException("Invalid condition format: " + condition);
-        }
-
-        String attribute = matcher.group(1);
-        String operator = matcher.group(2);
-        String valueStr = matcher.group(3).replace("'", "");
-
-        Object userValue = data.get(attribute);
-        if (userValue == null) {
-            throw new CustomException("Attribute not found in user data: " + attribute);
-        }
-
-        // Handle string comparisons
-        if (userValue instanceof String) {
-            return evaluateStringComparison((String) userValue, operator, valueStr);
-        }
-
-        // Handle numeric comparisons
-        if (userValue instanceof Number) {
-            return evaluateNumericComparison((Number) userValue, operator, valueStr);
-        }
-
-        throw new CustomException("Unsupported data type for attribute: " + attribute);
-    }
-
-    private boolean evaluateStringComparison(String userValue, String operator, String targetValue) {
-        return switch (operator) {
-            case "=" -> userValue.equals(targetValue);
-            default -> throw new CustomException("Invalid operator for string comparison: " + operator);
-        };
-    }
-
-    private boolean evaluateNumericComparison(Number userValue, String operator, String targetValue) {
-        double userNum = userValue.doubleValue();
-        double targetNum = Double.parseDouble(targetValue);
-
-        return switch (operator) {
-            case ">" -> userNum > targetNum;
-            case "<" -> userNum < targetNum;
-            case "=" -> Math.abs(userNum - targetNum) < 0.0001;
-            default -> throw new CustomException("Invalid operator for numeric comparison: " + operator);
-        };
-    }
-
     // Combine multiple rules into a single AST
     public Node combineRules(List<Long> ruleIds) {
         if (ruleIds.isEmpty()) {
@@ -273,7 +249,10 @@ public class RuleService {
         return combinedRoot;
     }
 
-    // Modify an existing rule
+    // Modify an existing rule. The new expression is applied as a structural diff: nodes whose
+    // position and content are unchanged keep their rows, changed operands are updated in place
+    // and only differing subtrees are inserted (see TreeDiff).
+    @Transactional
     public Rule modifyRule(Long ruleId, String newExpression) {
         Optional<Rule> ruleOptional = ruleRepository.findById(ruleId);
         if (ruleOptional.isEmpty()) {
@@ -281,9 +260,15 @@ public class RuleService {
         }
 
         Rule rule = ruleOptional.get();
+        costPolicy.checkExpression(newExpression);
         Node newRoot = parseRuleStringToAST(newExpression); // Parse the new expression
-        rule.setRootNode(newRoot);
-        return ruleRepository.save(rule);
+        rule.setCost(admit(newRoot));
+        TreeDiff diff = TreeDiff.apply(rule.getRootNode(), newRoot);
+        rule.setRootNode(diff.getRoot());
+        Rule saved = ruleRepository.save(rule);
+        eventPublisher.publishEvent(new RuleChangedEvent(ruleId, RuleChangedEvent.Type.MODIFIED,
+                Set.copyOf(diff.getChangedNodeIds())));
+        return saved;
     }
 
     // Get all rules from the repository
@@ -291,6 +276,23 @@ public class RuleService {
         return ruleRepository.findAll();
     }
 
+    public record RuleCostReport(Long ruleId, String ruleName, RuleCost cost) {
+    }
+
+    // Cost of every stored rule, most expensive first. Rules stored before scoring are measured on the
+    // fly, up to the evaluation budget: a score above the budget is a lower bound.
+    public List<RuleCostReport> getRuleCosts() {
+        List<RuleCostReport> reports = new ArrayList<>();
+        for (Rule rule : ruleRepository.findAll()) {
+            RuleCost cost = rule.getCost() != null && rule.getCost().getScore() != null
+                    ? rule.getCost()
+                    : CostModel.measure(rule.getRootNode(), costPolicy.getEvaluationBudget());
+            reports.add(new RuleCostReport(rule.getId(), rule.getRuleName(), cost));
+        }
+        reports.sort(Comparator.comparing((RuleCostReport r) -> r.cost().getScore()).reversed());
+        return reports;
+    }
+
     // Delete a rule by ID
     public void deleteRule(Long ruleId) {
         Optional<Rule> ruleOptional = ruleRepository.findById(ruleId);
@@ -298,5 +300,6 @@ public class RuleService {
             throw new CustomException("Rule not found");
         }
         ruleRepository.deleteById(ruleId);
+        eventPublisher.publishEvent(new RuleChangedEvent(ruleId, RuleChangedEvent.Type.DELETED));
     }
 }
@@ -0,0 +1,156 @@
+package com.ruleengine.service;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.OffHeapRuleStore;
+import com.ruleengine.compiler.ShardedRuleSet;
+import com.ruleengine.exception.CustomException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Evaluates one record against a whole rule set. Large sets are evaluated shard by shard
+// on a ForkJoinPool (idle workers steal remaining shards); small sets run sequentially on
+// the calling thread. A rule that cannot be evaluated against the record counts as no match.
+@Service
+public class RuleSetEvaluator {
+
+    private final ForkJoinPool pool;
+    private final long sequentialThreshold;
+    private final int shardCount;
+
+    @Autowired
+    public RuleSetEvaluator(@Value("${rules.parallel.threshold:20000}") long sequentialThreshold,
+                            @Value("${rules.parallel.shards-per-core:4}") int shardsPerCore) {
+        this(ForkJoinPool.commonPool(), sequentialThreshold,
+                Runtime.getRuntime().availableProcessors() * Math.max(1, shardsPerCore));
+    }
+
+    public RuleSetEvaluator(ForkJoinPool pool, long sequentialThreshold) {
+        this(pool, sequentialThreshold, pool.getParallelism() * 4);
+    }
+
+    public RuleSetEvaluator(ForkJoinPool pool, long sequentialThreshold, int shardCount) {
+        this.pool = pool;
+        this.sequentialThreshold = sequentialThreshold;
+        this.shardCount = Math.max(1, shardCount);
+    }
+
+    // Ids of all matching rules in ascending order
+    public List<Long> matchingRuleIds(ShardedRuleSet ruleSet, Map<String, Object> data) {
+        CompiledRule[][] shards = ruleSet.getShards();
+        long[] matched;
+        if (ruleSet.getTotalCost() < sequentialThreshold || shards.length < 2 || pool.getParallelism() < 2) {
+            matched = evaluateShards(shards, 0, shards.length, data);
+        } else {
+            matched = pool.invoke(new ShardTask(shards, 0, shards.length, data));
+        }
+        Arrays.sort(matched);
+        return Arrays.stream(matched).boxed().toList();
+    }
+
+    // Same for rules served from an off-heap store: shards are equal ranges of its index
+    public List<Long> matchingRuleIds(OffHeapRuleStore store, Map<String, Object> data) {
+        int shards = Math.max(1, Math.min(shardCount, store.size()));
+        long[] matched;
+        if (store.getTotalCost() < sequentialThreshold || shards < 2 || pool.getParallelism() < 2) {
+            matched = store.matchingRuleIds(data, 0, store.size());
+        } else {
+            matched = pool.invoke(new RangeTask(store, shards, 0, shards, data));
+        }
+        return Arrays.stream(matched).boxed().toList(); // the index is sorted by id
+    }
+
+    private static long[] evaluateShards(CompiledRule[][] shards, int from, int to, Map<String, Object> data) {
+        long[] matched = new long[16];
+        int count = 0;
+        for (int s = from; s < to; s++) {
+            for (CompiledRule rule : shards[s]) {
+                if (matches(rule, data)) {
+                    if (count == matched.length) {
+                        matched = Arrays.copyOf(matched, count * 2);
+                    }
+                    matched[count++] = rule.getRuleId();
+                }
+            }
+        }
+        return Arrays.copyOf(matched, count);
+    }
+
+    private static boolean matches(CompiledRule rule, Map<String, Object> data) {
+        try {
+            return rule.evaluate(data);
+        } catch (CustomException e) {
+            return false;
+        }
+    }
+
+    private static long[] concat(long[] left, long[] right) {
+        long[] merged = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, merged, left.length, right.length);
+        return merged;
+    }
+
+    // Shards [from, to) of shardCount equal index ranges; results stay in index order
+    private static final class RangeTask extends RecursiveTask<long[]> {
+
+        private final OffHeapRuleStore store;
+        private final int shardCount;
+        private final int from;
+        private final int to;
+        private final Map<String, Object> data;
+
+        RangeTask(OffHeapRuleStore store, int shardCount, int from, int to, Map<String, Object> data) {
+            this.store = store;
+            this.shardCount = shardCount;
+            this.from = from;
+            this.to = to;
+            this.data = data;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from == 1) {
+                long size = store.size();
+                return store.matchingRuleIds(data, (int) (size * from / shardCount), (int) (size * to / shardCount));
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask right = new RangeTask(store, shardCount, mid, to, data);
+            right.fork();
+            long[] left = new RangeTask(store, shardCount, from, mid, data).compute();
+            return concat(left, right.join());
+        }
+    }
+
+    private static final class ShardTask extends RecursiveTask<long[]> {
+
+        private final CompiledRule[][] shards;
+        private final int from;
+        private final int to;
+        private final Map<String, Object> data;
+
+        ShardTask(CompiledRule[][] shards, int from, int to, Map<String, Object> data) {
+            this.shards = shards;
+            this.from = from;
+            this.to = to;
+            this.data = data;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from == 1) {
+                return evaluateShards(shards, from, to, data);
+            }
+            int mid = (from + to) >>> 1;
+            ShardTask right = new ShardTask(shards, mid, to, data);
+            right.fork();
+            long[] left = new ShardTask(shards, from, mid, data).compute();
+            return concat(left, right.join());
+        }
+    }
+}
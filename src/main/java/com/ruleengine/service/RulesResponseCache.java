@@ -0,0 +1,146 @@
+package com.ruleengine.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Rule;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Serialized /getRules response for the current rule version. The version is bumped on every
+// rule create / modify / delete; until then every read is served from the cached bytes and
+// clients holding the current ETag get 304 Not Modified.
+//
+// ETags combine the process start time with the version, so a restart never reuses a tag
+// that was handed out for different content.
+//
+// The JSON is written with the ObjectMapper of the registered JSON message converter, not Boot's
+// ObjectMapper bean: CorsConfig's @EnableWebMvc registers converters with their own mapper, and
+// the cached bytes must match what /create and the non-JSON branch of /getRules produce.
+@Service
+public class RulesResponseCache {
+
+    private final RuleService ruleService;
+    private final Supplier<ObjectMapper> objectMapperSource;
+    private final int gzipMinBytes;
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile long lastModified = truncateToSeconds(System.currentTimeMillis());
+    private volatile Snapshot snapshot;
+    private volatile ObjectMapper objectMapper;
+
+    public record Snapshot(long version, String eTag, long lastModified, byte[] json, byte[] gzip) {
+    }
+
+    public RulesResponseCache(RuleService ruleService, ObjectMapper objectMapper, int gzipMinBytes) {
+        this(ruleService, () -> objectMapper, gzipMinBytes);
+    }
+
+    @Autowired
+    public RulesResponseCache(RuleService ruleService,
+                              ObjectProvider<RequestMappingHandlerAdapter> handlerAdapter,
+                              @Value("${rules.read-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this(ruleService, () -> jsonConverterMapper(handlerAdapter.getObject()), gzipMinBytes);
+    }
+
+    private RulesResponseCache(RuleService ruleService, Supplier<ObjectMapper> objectMapperSource, int gzipMinBytes) {
+        this.ruleService = ruleService;
+        this.objectMapperSource = objectMapperSource;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    // The first converter that would write the response map as JSON, as MVC picks it. Spring
+    // Data's ProjectingJackson2HttpMessageConverter comes first but only reads, with Boot's mapper.
+    private static ObjectMapper jsonConverterMapper(RequestMappingHandlerAdapter handlerAdapter) {
+        return handlerAdapter.getMessageConverters().stream()
+                .filter(converter -> converter.canWrite(Map.class, MediaType.APPLICATION_JSON))
+                .findFirst()
+                .filter(AbstractJackson2HttpMessageConverter.class::isInstance)
+                .map(converter -> ((AbstractJackson2HttpMessageConverter) converter).getObjectMapper())
+                .orElseThrow(() -> new CustomException("No JSON message converter registered"));
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (current != null && current.version() == version.get()) {
+            return current;
+        }
+        synchronized (this) {
+            // Tag with the version seen before reading, so a change during the read forces a rebuild
+            long readVersion = version.get();
+            long readLastModified = lastModified;
+            current = snapshot;
+            if (current != null && current.version() == readVersion) {
+                return current;
+            }
+            List<Rule> rules = ruleService.getRules();
+            byte[] json = serialize(Map.of(
+                    "rules", rules,
+                    "count", rules.size()
+            ));
+            byte[] gzip = json.length >= gzipMinBytes ? gzip(json) : null;
+            current = new Snapshot(readVersion, "\"" + epoch + "-" + readVersion + "\"", readLastModified, json, gzip);
+            snapshot = current;
+            return current;
+        }
+    }
+
+    @Order(5)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRuleChanged(RuleChangedEvent event) {
+        // Keep Last-Modified increasing even for several changes within one second
+        lastModified = Math.max(lastModified + 1000, truncateToSeconds(System.currentTimeMillis()));
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private byte[] serialize(Object body) {
+        ObjectMapper mapper = objectMapper;
+        if (mapper == null) {
+            mapper = objectMapperSource.get(); // resolved on first use, once the MVC converters exist
+            objectMapper = mapper;
+        }
+        try {
+            return mapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new CustomException("Failed to serialize rules: " + e.getMessage());
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // HTTP dates have one-second resolution
+    private static long truncateToSeconds(long millis) {
+        return millis / 1000 * 1000;
+    }
+}
@@ -0,0 +1,13 @@
+package com.ruleengine.stream;
+
+import java.util.List;
+import java.util.Map;
+
+// Outcome of evaluating one record against the processor's rule set.
+// error is non-null when the record could not be evaluated (e.g. a missing attribute).
+public record Decision(Map<String, Object> record, List<Long> matchedRuleIds, String error) {
+
+    public boolean isError() {
+        return error != null;
+    }
+}
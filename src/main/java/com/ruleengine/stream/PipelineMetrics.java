@@ -0,0 +1,95 @@
+package com.ruleengine.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and gauges for a RuleEvaluationProcessor. All readers are lock-free so the
+// values can be polled by any metrics exporter.
+public class PipelineMetrics {
+
+    final LongAdder received = new LongAdder();
+    final LongAdder emitted = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder batches = new LongAdder();
+    final LongAdder batchedRecords = new LongAdder();
+    final AtomicLong buffered = new AtomicLong();
+    final AtomicLong inFlight = new AtomicLong();
+    final LongAdder queueWaitNanos = new LongAdder();
+    final LongAdder evaluateNanos = new LongAdder();
+    final LongAdder emitNanos = new LongAdder();
+    final AtomicLong maxEvaluateNanos = new AtomicLong();
+
+    private volatile LagSource lagSource = () -> 0;
+
+    interface LagSource {
+        int lag();
+    }
+
+    void bindLag(LagSource source) {
+        this.lagSource = source;
+    }
+
+    void recordEvaluate(long nanos) {
+        evaluateNanos.add(nanos);
+        maxEvaluateNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    public long getEmitted() {
+        return emitted.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    // Records waiting in the current, not yet dispatched micro-batch
+    public long getBufferedRecords() {
+        return buffered.get();
+    }
+
+    // Records requested from upstream that have not been handed downstream yet
+    public long getInFlightRecords() {
+        return inFlight.get();
+    }
+
+    // Largest number of decisions a downstream subscriber has not consumed yet
+    public int getDownstreamLag() {
+        return lagSource.lag();
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) batchedRecords.sum() / count;
+    }
+
+    // Time from batch dispatch until a worker picked it up
+    public double getAverageQueueWaitMicros() {
+        return perBatchMicros(queueWaitNanos.sum());
+    }
+
+    public double getAverageEvaluateMicros() {
+        return perBatchMicros(evaluateNanos.sum());
+    }
+
+    public double getMaxEvaluateMicros() {
+        return maxEvaluateNanos.get() / 1_000.0;
+    }
+
+    // Time spent handing decisions downstream, including waits caused by backpressure
+    public double getAverageEmitMicros() {
+        return perBatchMicros(emitNanos.sum());
+    }
+
+    private double perBatchMicros(long nanos) {
+        long count = batches.sum();
+        return count == 0 ? 0 : nanos / 1_000.0 / count;
+    }
+}
@@ -0,0 +1,269 @@
+package com.ruleengine.stream;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.exception.CustomException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Flow stage that micro-batches incoming records, evaluates each batch against the
+// current rule set on a worker pool and publishes one Decision per record.
+//
+// Backpressure: at most maxInFlight records are requested from upstream; more are only
+// requested once decisions have been accepted by the bounded downstream buffer. When a
+// downstream subscriber falls behind, workers block on submit and upstream demand stops.
+// Decisions of different batches may be emitted out of order.
+//
+// The processor has no Spring dependencies so it can be wired next to any message consumer.
+public class RuleEvaluationProcessor implements Flow.Processor<Map<String, Object>, Decision>, AutoCloseable {
+
+    private final int batchSize;
+    private final long lingerMillis;
+    private final int maxInFlight;
+    private final Executor workers;
+    private final ThreadPoolExecutor emitPool;
+    private final SubmissionPublisher<Decision> downstream;
+    private final ScheduledExecutorService lingerTimer;
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private final AtomicInteger pendingBatches = new AtomicInteger();
+
+    private volatile List<CompiledRule> rules;
+    private Flow.Subscription upstream;
+    private List<Map<String, Object>> batch;
+    private boolean upstreamDone;
+
+    public RuleEvaluationProcessor(List<CompiledRule> rules, Executor workers) {
+        this(rules, workers, 64, 5, 1024, Flow.defaultBufferSize());
+    }
+
+    public RuleEvaluationProcessor(List<CompiledRule> rules,
+                                   Executor workers,
+                                   int batchSize,
+                                   long lingerMillis,
+                                   int maxInFlight,
+                                   int downstreamBufferSize) {
+        if (batchSize <= 0 || maxInFlight < batchSize) {
+            throw new CustomException("Batch size must be positive and not exceed max in-flight records");
+        }
+        this.rules = List.copyOf(rules);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.maxInFlight = maxInFlight;
+        this.batch = new ArrayList<>(batchSize);
+        // Delivery runs on its own threads so workers blocked on a full buffer cannot starve it.
+        // The pool is shut down with the downstream; deliveries a subscriber requests after that
+        // (e.g. the rest of a buffer it had not asked for yet) run on the requesting thread.
+        this.emitPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                daemon("rule-pipeline-emit"), (task, executor) -> task.run());
+        this.downstream = new SubmissionPublisher<>(emitPool, downstreamBufferSize);
+        this.metrics.bindLag(downstream::estimateMaximumLag);
+        this.lingerTimer = Executors.newSingleThreadScheduledExecutor(daemon("rule-pipeline-linger"));
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Swap the rule set; batches dispatched afterwards use the new rules
+    public void setRules(List<CompiledRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Decision> subscriber) {
+        downstream.subscribe(subscriber);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        synchronized (this) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+        }
+        if (lingerMillis > 0) {
+            lingerTimer.scheduleAtFixedRate(this::flushIdleBatch, lingerMillis, lingerMillis, TimeUnit.MILLISECONDS);
+        }
+        metrics.inFlight.addAndGet(maxInFlight);
+        subscription.request(maxInFlight);
+    }
+
+    @Override
+    public void onNext(Map<String, Object> record) {
+        metrics.received.increment();
+        List<Map<String, Object>> full = null;
+        synchronized (this) {
+            batch.add(record);
+            metrics.buffered.incrementAndGet();
+            if (batch.size() >= batchSize) {
+                full = takeBatch();
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (this) {
+            upstreamDone = true;
+        }
+        lingerTimer.shutdownNow();
+        closeDownstream(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        List<Map<String, Object>> rest;
+        synchronized (this) {
+            upstreamDone = true;
+            rest = batch.isEmpty() ? null : takeBatch();
+        }
+        lingerTimer.shutdownNow();
+        if (rest != null) {
+            dispatch(rest);
+        }
+        closeIfDrained();
+    }
+
+    @Override
+    public void close() {
+        Flow.Subscription subscription;
+        synchronized (this) {
+            upstreamDone = true;
+            subscription = upstream;
+        }
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        lingerTimer.shutdownNow();
+        closeDownstream(null);
+    }
+
+    private void flushIdleBatch() {
+        List<Map<String, Object>> partial;
+        synchronized (this) {
+            partial = batch.isEmpty() ? null : takeBatch();
+        }
+        if (partial != null) {
+            dispatch(partial);
+        }
+    }
+
+    // Called with the lock held
+    private List<Map<String, Object>> takeBatch() {
+        List<Map<String, Object>> taken = batch;
+        metrics.buffered.addAndGet(-taken.size());
+        batch = new ArrayList<>(batchSize);
+        pendingBatches.incrementAndGet();
+        return taken;
+    }
+
+    private void dispatch(List<Map<String, Object>> records) {
+        metrics.batches.increment();
+        metrics.batchedRecords.add(records.size());
+        long dispatchedAt = System.nanoTime();
+        try {
+            workers.execute(() -> process(records, dispatchedAt));
+        } catch (RejectedExecutionException e) {
+            pendingBatches.decrementAndGet();
+            closeDownstream(e);
+        }
+    }
+
+    // The batch is always released and its demand returned upstream, even if emitting fails,
+    // so one failure cannot stall the pipeline
+    private void process(List<Map<String, Object>> records, long dispatchedAt) {
+        try {
+            long started = System.nanoTime();
+            metrics.queueWaitNanos.add(started - dispatchedAt);
+
+            List<CompiledRule> ruleSet = rules;
+            List<Decision> decisions = new ArrayList<>(records.size());
+            for (Map<String, Object> record : records) {
+                decisions.add(evaluate(ruleSet, record));
+            }
+            long evaluated = System.nanoTime();
+            metrics.recordEvaluate(evaluated - started);
+
+            for (Decision decision : decisions) {
+                if (downstream.isClosed()) break;
+                downstream.submit(decision); // blocks while the downstream buffer is full
+                metrics.emitted.increment();
+            }
+            metrics.emitNanos.add(System.nanoTime() - evaluated);
+        } finally {
+            release(records.size());
+        }
+    }
+
+    private void release(int records) {
+        metrics.inFlight.addAndGet(-records);
+        pendingBatches.decrementAndGet();
+        Flow.Subscription subscription;
+        boolean done;
+        synchronized (this) {
+            subscription = upstream;
+            done = upstreamDone;
+        }
+        if (!done && subscription != null) {
+            metrics.inFlight.addAndGet(records);
+            subscription.request(records);
+        }
+        closeIfDrained();
+    }
+
+    // Any failure on one record becomes an error decision for that record
+    private Decision evaluate(List<CompiledRule> ruleSet, Map<String, Object> record) {
+        try {
+            List<Long> matched = new ArrayList<>();
+            for (CompiledRule rule : ruleSet) {
+                if (rule.evaluate(record)) {
+                    matched.add(rule.getRuleId());
+                }
+            }
+            return new Decision(record, matched, null);
+        } catch (CustomException e) {
+            metrics.errors.increment();
+            return new Decision(record, List.of(), e.getMessage());
+        } catch (RuntimeException e) {
+            metrics.errors.increment();
+            return new Decision(record, List.of(), e.toString());
+        }
+    }
+
+    private void closeIfDrained() {
+        boolean done;
+        synchronized (this) {
+            done = upstreamDone && batch.isEmpty();
+        }
+        if (done && pendingBatches.get() == 0) {
+            closeDownstream(null);
+        }
+    }
+
+    // Close signals are handed to the emit pool before it stops accepting new threads
+    private void closeDownstream(Throwable error) {
+        if (error == null) {
+            downstream.close();
+        } else {
+            downstream.closeExceptionally(error);
+        }
+        emitPool.shutdown();
+    }
+}
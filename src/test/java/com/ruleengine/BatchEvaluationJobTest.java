@@ -0,0 +1,48 @@
+package com.ruleengine;
+
+import com.ruleengine.batch.BatchEvaluationJob;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.model.Node;
+import com.ruleengine.model.Rule;
+import com.ruleengine.model.RuleCost;
+import com.ruleengine.repository.RuleRepository;
+import com.ruleengine.service.RuleCostPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BatchEvaluationJobTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void run_UnusableStoredRules_AreSkipped() throws Exception {
+        // Given: one valid rule, one that does not parse and one over the evaluation budget
+        Rule valid = new Rule(1L, "valid", new Node("operand", null, null, "age > 30"), LocalDateTime.now());
+        Rule broken = new Rule(2L, "broken", new Node("operand", null, null, "age >>> thirty"), LocalDateTime.now());
+        Rule expensive = new Rule(3L, "expensive", new Node("operand", null, null, "salary > 1"), LocalDateTime.now(),
+                new RuleCost(10_000, 1, 1));
+        RuleRepository ruleRepository = mock(RuleRepository.class);
+        when(ruleRepository.findAll()).thenReturn(List.of(valid, broken, expensive));
+
+        Path input = dir.resolve("users.csv");
+        Files.writeString(input, "id,age,salary\nu1,35,100\nu2,20,100\n");
+        Path output = dir.resolve("matches.csv");
+        BatchEvaluationJob job = new BatchEvaluationJob(ruleRepository, new RuleCompiler(),
+                new RuleCostPolicy(128, 1000, 2000, 5000), input.toString(), output.toString(), "id", 1 << 20, 2);
+
+        // When
+        job.run(null);
+
+        // Then
+        assertEquals(List.of("rowId,ruleId", "u1,1"), Files.readAllLines(output));
+    }
+}
@@ -0,0 +1,98 @@
+package com.ruleengine;
+
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Node;
+import com.ruleengine.model.Rule;
+import com.ruleengine.repository.RuleRepository;
+import com.ruleengine.service.CompiledRuleCache;
+import com.ruleengine.service.RuleChangedEvent;
+import com.ruleengine.service.RuleCostPolicy;
+import com.ruleengine.service.RuleSetEvaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompiledRuleCacheTest {
+
+    private final RuleRepository ruleRepository = mock(RuleRepository.class);
+    private final CompiledRuleCache cache = new CompiledRuleCache(ruleRepository, new RuleCompiler(),
+            new RuleCostPolicy(8, 15, 20, 40), 1, "");
+
+    private Rule rule(long id, Node root) {
+        Rule rule = new Rule();
+        rule.setId(id);
+        rule.setRootNode(root);
+        return rule;
+    }
+
+    @Test
+    void get_LegacyRuleOverBudget_IsSkippedWithReason() {
+        // Given: a rule with 41 operator nodes stored before the limits existed, and a normal one
+        Node deep = new Node("operand", null, null, "age > 30");
+        for (int i = 0; i < 41; i++) {
+            deep = new Node("operator", deep, new Node("operand", null, null, "age > 30"), "AND");
+        }
+        Node small = new Node("operand", null, null, "age > 30");
+        when(ruleRepository.findAll()).thenReturn(List.of(rule(1L, deep), rule(2L, small)));
+
+        // When
+        CustomException error = assertThrows(CustomException.class, () -> cache.get(1L));
+
+        // Then
+        assertEquals("Rule exceeds the evaluation budget of 40", error.getMessage());
+        assertTrue(cache.evaluate(2L, Map.of("age", 35)));
+        assertEquals(1, cache.getRuleSet().size());
+    }
+
+    @Test
+    void get_InvalidStoredCondition_IsSkipped() {
+        // Given
+        Node broken = new Node("operator", new Node("operand", null, null, "age >> 30"),
+                new Node("operand", null, null, "age > 30"), "AND");
+        when(ruleRepository.findAll()).thenReturn(List.of(rule(1L, broken)));
+
+        // When & Then
+        assertThrows(CustomException.class, () -> cache.get(1L));
+        assertEquals(0, cache.getRuleSet().size());
+    }
+
+    @Test
+    void offHeap_ServesEvaluationsAndChangesFromTheStore() {
+        // Given
+        CompiledRuleCache offHeap = new CompiledRuleCache(ruleRepository, new RuleCompiler(),
+                new RuleCostPolicy(8, 15, 20, 40), 1, "", true);
+        Node broken = new Node("operand", null, null, "age >> 30");
+        when(ruleRepository.findAll()).thenReturn(List.of(
+                rule(1L, new Node("operand", null, null, "age > 30")),
+                rule(2L, new Node("operand", null, null, "salary > 1000")),
+                rule(3L, broken)));
+        Map<String, Object> user = Map.of("age", 35, "salary", 500);
+
+        // Then: the store holds the compilable rules, and nothing is kept as heap objects
+        assertEquals(2, offHeap.getStore().size());
+        assertTrue(offHeap.evaluate(1L, user));
+        assertFalse(offHeap.evaluate(2L, user));
+        assertThrows(CustomException.class, () -> offHeap.evaluate(3L, user));
+        assertEquals(List.of(1L), new RuleSetEvaluator(ForkJoinPool.commonPool(), 0, 2)
+                .matchingRuleIds(offHeap.getStore(), user));
+        assertEquals(List.of("age"), List.copyOf(offHeap.get(1L).getAttributes()));
+
+        // When: one rule is modified and another deleted
+        when(ruleRepository.findById(2L)).thenReturn(Optional.of(rule(2L, new Node("operand", null, null, "salary > 100"))));
+        offHeap.onRuleChanged(new RuleChangedEvent(2L, RuleChangedEvent.Type.MODIFIED));
+        offHeap.onRuleChanged(new RuleChangedEvent(1L, RuleChangedEvent.Type.DELETED));
+
+        // Then
+        assertTrue(offHeap.evaluate(2L, user));
+        assertThrows(CustomException.class, () -> offHeap.evaluate(1L, user));
+        assertEquals(1, offHeap.getStore().size());
+    }
+}
@@ -0,0 +1,86 @@
+package com.ruleengine;
+
+import com.ruleengine.batch.CsvBatchEvaluator;
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvBatchEvaluatorTest {
+
+    private final RuleCompiler compiler = new RuleCompiler();
+
+    @TempDir
+    Path dir;
+
+    private CompiledRule seniorSales() {
+        Node root = new Node("operator",
+                new Node("operand", null, null, "age > 30"),
+                new Node("operand", null, null, "department = 'Sales'"),
+                "AND");
+        return compiler.compile(1L, root);
+    }
+
+    private CompiledRule highEarner() {
+        return compiler.compile(2L, new Node("operand", null, null, "salary > 50000"));
+    }
+
+    @Test
+    void run_SmallChunks_MatchesEveryRow() throws Exception {
+        // Given
+        Path input = dir.resolve("users.csv");
+        Files.writeString(input, "id,name,age,department,salary\n"
+                + "u1,Ann,35,Sales,60000\n"
+                + "u2,Bob,25,Sales,40000\r\n"
+                + "u3,Cid,45,IT,90000\n"
+                + "u4,Dee,50,\"Sales\",10000");
+        Path output = dir.resolve("matches.csv");
+
+        // When: chunks smaller than a line force splitting on every row
+        CsvBatchEvaluator evaluator = new CsvBatchEvaluator(List.of(seniorSales(), highEarner()), "id", 8, 4);
+        CsvBatchEvaluator.BatchResult result = evaluator.run(input, output);
+
+        // Then
+        assertEquals(4, result.rows());
+        assertEquals(4, result.matches());
+        assertEquals(List.of("rowId,ruleId", "u1,1", "u1,2", "u3,2", "u4,1"), Files.readAllLines(output));
+    }
+
+    @Test
+    void run_MissingAttributeColumn_ThrowsException() throws Exception {
+        // Given
+        Path input = dir.resolve("users.csv");
+        Files.writeString(input, "id,age\nu1,35\n");
+
+        // When & Then
+        CsvBatchEvaluator evaluator = new CsvBatchEvaluator(List.of(seniorSales()), "id", 1024, 2);
+        assertThrows(CustomException.class, () -> evaluator.run(input, dir.resolve("out.csv")));
+    }
+
+    @Test
+    void run_QuotedFieldsWithCommas_KeepColumnsAligned() throws Exception {
+        // Given: commas and escaped quotes inside quoted fields, in the header and in rows
+        Path input = dir.resolve("users.csv");
+        Files.writeString(input, "id,\"name, full\",age,department,salary\n"
+                + "\"u,1\",\"Ann, \"\"The Closer\"\"\",35,Sales,60000\n"
+                + "u2,\"Lee, Bo\",28,\"Sales\",20000\n");
+        Path output = dir.resolve("matches.csv");
+
+        // When
+        CsvBatchEvaluator evaluator = new CsvBatchEvaluator(List.of(seniorSales(), highEarner()), "id", 16, 2);
+        CsvBatchEvaluator.BatchResult result = evaluator.run(input, output);
+
+        // Then
+        assertEquals(2, result.rows());
+        assertEquals(0, result.errors());
+        assertEquals(List.of("rowId,ruleId", "\"u,1\",1", "\"u,1\",2"), Files.readAllLines(output));
+    }
+}
@@ -0,0 +1,238 @@
+package com.ruleengine;
+
+import com.ruleengine.audit.AuditRecord;
+import com.ruleengine.audit.AuditSink;
+import com.ruleengine.audit.DecisionAuditLog;
+import com.ruleengine.audit.FileAuditSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionAuditLogTest {
+
+    private static final Map<String, Object> USER = Map.of("age", 35, "department", "Sales", "salary", 50000, "experience", 3);
+
+    // Collects every written record; optionally holds the writer until released
+    private static class CollectingSink implements AuditSink {
+        final List<AuditRecord> records = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch release;
+
+        CollectingSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void write(List<AuditRecord> batch) throws java.io.IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new java.io.InterruptedIOException();
+            }
+            records.addAll(batch);
+        }
+    }
+
+    // Fails the first failures writes, then collects
+    private static class FailingSink implements AuditSink {
+        final List<AuditRecord> records = Collections.synchronizedList(new ArrayList<>());
+        int failures;
+
+        FailingSink(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public void write(List<AuditRecord> batch) throws java.io.IOException {
+            if (failures-- > 0) {
+                throw new java.io.IOException("unavailable");
+            }
+            records.addAll(batch);
+        }
+    }
+
+    @Test
+    void record_BlockPolicy_WritesEveryDecisionInOrder() throws Exception {
+        // Given: a ring much smaller than the number of decisions
+        CollectingSink sink = new CollectingSink(new CountDownLatch(0));
+        DecisionAuditLog auditLog = new DecisionAuditLog(sink, true, 64, DecisionAuditLog.OverflowPolicy.BLOCK, 10, 50, 1);
+        auditLog.start();
+
+        // When
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            long base = p * 1_000_000L;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    auditLog.record(base + i, USER, i % 2 == 0);
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        auditLog.stop();
+
+        // Then
+        DecisionAuditLog.Metrics metrics = auditLog.getMetrics();
+        assertEquals(40_000, sink.records.size());
+        assertEquals(40_000, metrics.written());
+        assertEquals(0, metrics.dropped());
+        assertEquals(0, metrics.pending());
+        long[] last = {-1, -1, -1, -1};
+        for (AuditRecord record : sink.records) {
+            int producer = (int) (record.ruleId() / 1_000_000L);
+            assertTrue(record.ruleId() > last[producer]);
+            last[producer] = record.ruleId();
+        }
+    }
+
+    @Test
+    void record_DropPolicy_CountsLostDecisions() {
+        // Given: the writer is stuck, so the ring fills up
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingSink sink = new CollectingSink(release);
+        DecisionAuditLog auditLog = new DecisionAuditLog(sink, true, 16, DecisionAuditLog.OverflowPolicy.DROP, 10, 4, 1);
+        auditLog.start();
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            auditLog.record(i, USER, true);
+        }
+        release.countDown();
+        auditLog.stop();
+
+        // Then
+        DecisionAuditLog.Metrics metrics = auditLog.getMetrics();
+        assertTrue(metrics.dropped() > 0);
+        assertEquals(1000, metrics.enqueued() + metrics.dropped());
+        assertEquals(metrics.enqueued(), metrics.written());
+        assertEquals(metrics.written(), sink.records.size());
+    }
+
+    @Test
+    void record_SamplePolicy_KeepsEveryNthOnceHalfFull() {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingSink sink = new CollectingSink(release);
+        DecisionAuditLog auditLog = new DecisionAuditLog(sink, true, 64, DecisionAuditLog.OverflowPolicy.SAMPLE, 4, 64, 1);
+        auditLog.start();
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            auditLog.record(i, USER, true);
+        }
+        release.countDown();
+        auditLog.stop();
+
+        // Then
+        DecisionAuditLog.Metrics metrics = auditLog.getMetrics();
+        assertTrue(metrics.sampledOut() > 0);
+        assertEquals(200, metrics.enqueued() + metrics.dropped() + metrics.sampledOut());
+        assertEquals(metrics.enqueued(), sink.records.size());
+    }
+
+    @Test
+    void fileSink_AppendsOneLinePerDecision(@TempDir Path dir) throws Exception {
+        // Given
+        Path file = dir.resolve("audit/decisions.log");
+        DecisionAuditLog auditLog = new DecisionAuditLog(new FileAuditSink(file.toString()), true, 1024,
+                DecisionAuditLog.OverflowPolicy.BLOCK, 10, 100, 5);
+        auditLog.start();
+
+        // When
+        auditLog.record(7, USER, true);
+        auditLog.record(8, new LinkedHashMap<>(USER), false);
+        auditLog.stop();
+
+        // Then: same inputs hash the same regardless of map order
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        String[] first = lines.get(0).split(",");
+        String[] second = lines.get(1).split(",");
+        assertEquals("7", first[1]);
+        assertEquals("true", first[3]);
+        assertEquals("8", second[1]);
+        assertEquals("false", second[3]);
+        assertEquals(first[2], second[2]);
+    }
+
+    @Test
+    void recordRuleSet_FileSink_WritesOneLineWithMatches(@TempDir Path dir) throws Exception {
+        // Given
+        Path file = dir.resolve("decisions.log");
+        DecisionAuditLog auditLog = new DecisionAuditLog(new FileAuditSink(file.toString()), true, 1024,
+                DecisionAuditLog.OverflowPolicy.DROP, 10, 100, 5);
+        auditLog.start();
+
+        // When
+        auditLog.recordRuleSet(USER, List.of(3L, 17L, 40L));
+        auditLog.recordRuleSet(USER, List.of());
+        auditLog.stop();
+
+        // Then
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        String[] all = lines.get(0).split(",");
+        assertEquals("0", all[1]);
+        assertEquals("true", all[3]);
+        assertEquals("3 17 40", all[4]);
+        assertTrue(lines.get(1).endsWith(",false,"));
+    }
+
+    @Test
+    void flush_SinkFailsBriefly_RetriesBatch(@TempDir Path dir) {
+        // Given
+        FailingSink sink = new FailingSink(2);
+        Path spill = dir.resolve("spill.log");
+        DecisionAuditLog auditLog = new DecisionAuditLog(sink, true, 1024, DecisionAuditLog.OverflowPolicy.BLOCK,
+                10, 100, 5, 3, spill.toString());
+        auditLog.start();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            auditLog.record(i, USER, true);
+        }
+        auditLog.stop();
+
+        // Then
+        DecisionAuditLog.Metrics metrics = auditLog.getMetrics();
+        assertEquals(10, sink.records.size());
+        assertEquals(10, metrics.written());
+        assertEquals(0, metrics.spilled());
+        assertEquals(0, metrics.failed());
+        assertFalse(Files.exists(spill));
+    }
+
+    @Test
+    void flush_SinkKeepsFailing_SpillsBatch(@TempDir Path dir) throws Exception {
+        // Given
+        FailingSink sink = new FailingSink(Integer.MAX_VALUE);
+        Path spill = dir.resolve("audit/spill.log");
+        DecisionAuditLog auditLog = new DecisionAuditLog(sink, true, 1024, DecisionAuditLog.OverflowPolicy.BLOCK,
+                10, 100, 5, 1, spill.toString());
+        auditLog.start();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            auditLog.record(i, USER, i % 2 == 0);
+        }
+        auditLog.stop();
+
+        // Then
+        DecisionAuditLog.Metrics metrics = auditLog.getMetrics();
+        assertEquals(0, metrics.written());
+        assertEquals(10, metrics.spilled());
+        assertEquals(0, metrics.failed());
+        List<String> lines = Files.readAllLines(spill);
+        assertEquals(10, lines.size());
+        assertEquals("0", lines.get(0).split(",")[1]);
+    }
+}
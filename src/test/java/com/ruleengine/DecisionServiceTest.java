@@ -0,0 +1,100 @@
+package com.ruleengine;
+
+import com.ruleengine.audit.DecisionAuditLog;
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.model.Node;
+import com.ruleengine.service.CompiledRuleCache;
+import com.ruleengine.service.DecisionService;
+import com.ruleengine.service.RuleChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DecisionServiceTest {
+
+    @Mock
+    private CompiledRuleCache compiledRuleCache;
+
+    @Mock
+    private DecisionAuditLog auditLog;
+
+    @InjectMocks
+    private DecisionService decisionService;
+
+    private final RuleCompiler compiler = new RuleCompiler();
+    private final Map<Long, CompiledRule> rules = new HashMap<>();
+
+    private void addRule(long id, String condition) {
+        rules.put(id, compiler.compile(id, new Node("operand", null, null, condition)));
+    }
+
+    @BeforeEach
+    void setUp() {
+        addRule(1L, "salary > 50000");
+        addRule(2L, "department = 'Sales'");
+        addRule(3L, "department IN ('Sales', 'IT')");
+        lenient().doAnswer(i -> {
+            rules.values().forEach(i.<Consumer<CompiledRule>>getArgument(0));
+            return null;
+        }).when(compiledRuleCache).forEachRule(any());
+        lenient().when(compiledRuleCache.get(anyLong())).thenAnswer(i -> rules.get((Long) i.getArgument(0)));
+    }
+
+    @Test
+    void updateEntity_SalaryChange_ReevaluatesOnlyDependentRules() {
+        // Given
+        Map<Long, Boolean> initial = decisionService.putEntity("u1",
+                Map.of("salary", 40000, "department", "Sales"));
+        assertEquals(Map.of(2L, true, 3L, true), initial);
+        clearInvocations(compiledRuleCache);
+
+        // When
+        Map<Long, Boolean> flipped = decisionService.updateEntity("u1", Map.of("salary", 60000));
+
+        // Then
+        assertEquals(Map.of(1L, true), flipped);
+        verify(compiledRuleCache).get(1L);
+        verify(compiledRuleCache, never()).get(2L);
+        verify(compiledRuleCache, never()).get(3L);
+        assertEquals(List.of(1L, 2L, 3L), decisionService.getMatchingRuleIds("u1"));
+    }
+
+    @Test
+    void updateEntity_DepartmentChange_EmitsOnlyFlippedDecisions() {
+        // Given
+        decisionService.putEntity("u1", Map.of("salary", 40000, "department", "Sales"));
+
+        // When
+        Map<Long, Boolean> flipped = decisionService.updateEntity("u1", Map.of("department", "IT"));
+
+        // Then: rule 3 still matches, so only rule 2 is reported
+        assertEquals(Map.of(2L, false), flipped);
+        assertEquals(List.of(3L), decisionService.getMatchingRuleIds("u1"));
+    }
+
+    @Test
+    void onRuleChanged_ModifiedRule_UpdatesMaterializedDecisions() {
+        // Given
+        decisionService.putEntity("u1", Map.of("salary", 40000, "department", "HR"));
+
+        // When
+        addRule(1L, "salary > 30000");
+        decisionService.onRuleChanged(new RuleChangedEvent(1L, RuleChangedEvent.Type.MODIFIED));
+
+        // Then
+        assertEquals(List.of(1L), decisionService.getMatchingRuleIds("u1"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.ruleengine;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.DecisionTree;
+import com.ruleengine.compiler.DecisionTreeCompiler;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Node;
+import com.ruleengine.model.OrderedRuleSet;
+import com.ruleengine.model.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionTreeCompilerTest {
+
+    private static final String[] DEPARTMENTS = {"Sales", "Marketing", "IT", "HR"};
+
+    private final DecisionTreeCompiler treeCompiler = new DecisionTreeCompiler(50_000);
+    private final RuleCompiler ruleCompiler = new RuleCompiler();
+
+    private Node operand(String condition) {
+        return new Node("operand", null, null, condition);
+    }
+
+    private Node and(Node left, Node right) {
+        return new Node("operator", left, right, "AND");
+    }
+
+    private Node or(Node left, Node right) {
+        return new Node("operator", left, right, "OR");
+    }
+
+    private Rule rule(long id, Node root) {
+        return new Rule(id, "rule" + id, root, LocalDateTime.now());
+    }
+
+    // Pricing tiers: the same age / salary thresholds appear in several rules
+    private List<Rule> tiers() {
+        return List.of(
+                rule(10, and(operand("age > 50"), operand("salary > 80000"))),
+                rule(20, and(operand("age > 40"), or(operand("department = 'Sales'"), operand("salary > 80000")))),
+                rule(30, and(operand("age > 30"), operand("department IN ('IT', 'HR')"))),
+                rule(40, or(operand("age < 25"), operand("department NOT IN ('Sales', 'IT', 'HR')"))),
+                rule(50, and(operand("experience > 5"), operand("salary > 50000"))));
+    }
+
+    private List<Map<String, Object>> randomUsers(int count) {
+        Random random = new Random(7);
+        List<Map<String, Object>> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(Map.of(
+                    "age", 18 + random.nextInt(50),
+                    "department", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)],
+                    "salary", 20000 + random.nextInt(10) * 10000,
+                    "experience", random.nextInt(12)));
+        }
+        return users;
+    }
+
+    private List<Long> sequential(List<Rule> rules, Map<String, Object> user, boolean firstOnly) {
+        List<Long> matching = new ArrayList<>();
+        for (Rule rule : rules) {
+            CompiledRule compiled = ruleCompiler.compile(rule);
+            if (compiled.evaluate(user)) {
+                matching.add(rule.getId());
+                if (firstOnly) break;
+            }
+        }
+        return matching;
+    }
+
+    @Test
+    void compile_FirstMatch_AgreesWithRuleByRuleEvaluation() {
+        // Given
+        List<Rule> rules = tiers();
+
+        // When
+        DecisionTree tree = treeCompiler.compile(rules, OrderedRuleSet.Mode.FIRST_MATCH);
+
+        // Then
+        for (Map<String, Object> user : randomUsers(2000)) {
+            assertEquals(sequential(rules, user, true), tree.evaluate(user), user.toString());
+        }
+        assertTrue(tree.expectedTests() < tree.getSequentialTests());
+    }
+
+    @Test
+    void compile_AllMatch_AgreesWithRuleByRuleEvaluation() {
+        // Given
+        List<Rule> rules = tiers();
+
+        // When
+        DecisionTree tree = treeCompiler.compile(rules, OrderedRuleSet.Mode.ALL_MATCH);
+
+        // Then: every shared condition is tested at most once per path
+        assertEquals(10, tree.getTests().length);
+        assertTrue(tree.maxDepth() <= tree.getTests().length);
+        for (Map<String, Object> user : randomUsers(2000)) {
+            assertEquals(sequential(rules, user, false), tree.evaluate(user), user.toString());
+        }
+    }
+
+    @Test
+    void compile_ImpliedThreshold_IsNotTestedAgain() {
+        // Given: age > 50 being true settles age > 40
+        List<Rule> rules = List.of(
+                rule(1, and(operand("age > 50"), operand("salary > 1"))),
+                rule(2, and(operand("age > 40"), operand("salary > 1"))));
+
+        // When
+        DecisionTree tree = treeCompiler.compile(rules, OrderedRuleSet.Mode.ALL_MATCH);
+
+        // Then
+        assertEquals(List.of(1L, 2L), tree.evaluate(Map.of("age", 60, "salary", 5)));
+        assertEquals(List.of(2L), tree.evaluate(Map.of("age", 45, "salary", 5)));
+        assertEquals(List.of(), tree.evaluate(Map.of("age", 45, "salary", 0)));
+        assertEquals(3, tree.maxDepth());
+    }
+
+    @Test
+    void toBytes_RoundTrip_EvaluatesTheSame() {
+        // Given
+        List<Rule> rules = tiers();
+        DecisionTree tree = treeCompiler.compile(rules, OrderedRuleSet.Mode.FIRST_MATCH);
+
+        // When
+        DecisionTree restored = DecisionTree.fromBytes(tree.toBytes());
+
+        // Then
+        assertEquals(tree.nodeCount(), restored.nodeCount());
+        for (Map<String, Object> user : randomUsers(500)) {
+            assertEquals(tree.evaluate(user), restored.evaluate(user));
+        }
+    }
+
+    @Test
+    void evaluate_MissingAttribute_ThrowsEvenWhenPathSkipsIt() {
+        // Given
+        DecisionTree tree = treeCompiler.compile(tiers(), OrderedRuleSet.Mode.FIRST_MATCH);
+
+        // Then
+        assertThrows(CustomException.class,
+                () -> tree.evaluate(Map.of("age", 60, "salary", 90000, "department", "IT")));
+    }
+
+    @Test
+    void compile_TooManyNodes_Throws() {
+        // Given
+        DecisionTreeCompiler tiny = new DecisionTreeCompiler(3);
+
+        // Then
+        assertThrows(CustomException.class, () -> tiny.compile(tiers(), OrderedRuleSet.Mode.ALL_MATCH));
+    }
+
+    @Test
+    void compile_TooManyStates_Throws() {
+        // Given: the tree itself would fit, but the search may only visit 5 states
+        DecisionTreeCompiler impatient = new DecisionTreeCompiler(50_000, 5);
+
+        // When
+        CustomException error = assertThrows(CustomException.class,
+                () -> impatient.compile(tiers(), OrderedRuleSet.Mode.ALL_MATCH));
+
+        // Then
+        assertEquals("Decision tree search exceeds 5 states", error.getMessage());
+    }
+
+    @Test
+    void compile_DeepRule_ThrowsInsteadOfOverflowing() {
+        // Given: far deeper than the call stack would allow recursively
+        Node root = operand("age > 30");
+        for (int i = 0; i < 100_000; i++) {
+            root = i % 2 == 0 ? and(operand("salary > 1"), root) : or(root, operand("age < 0"));
+        }
+
+        List<Rule> rules = List.of(rule(1, root));
+
+        // When & Then
+        assertThrows(CustomException.class, () -> treeCompiler.compile(rules, OrderedRuleSet.Mode.FIRST_MATCH));
+    }
+}
@@ -0,0 +1,111 @@
+package com.ruleengine;
+
+import com.ruleengine.batch.NodeCompactionJob;
+import com.ruleengine.model.Node;
+import com.ruleengine.model.Rule;
+import com.ruleengine.repository.RuleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the job commits batch by batch
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:compaction;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database=h2",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class NodeCompactionJobTest {
+
+    @Autowired
+    private RuleRepository ruleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private NodeCompactionJob job;
+
+    @BeforeEach
+    void setUp() {
+        ruleRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM node");
+        job = new NodeCompactionJob(namedJdbcTemplate, 2, 0);
+    }
+
+    private Node tree(int conditions) {
+        Node root = new Node("operand", null, null, "age > 0");
+        for (int i = 1; i < conditions; i++) {
+            root = new Node("operator", root, new Node("operand", null, null, "age > " + i), "AND");
+        }
+        return root;
+    }
+
+    private Rule save(Node root) {
+        return ruleRepository.save(new Rule(null, "rule", root, LocalDateTime.now()));
+    }
+
+    private int nodeCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM node", Integer.class);
+    }
+
+    @Test
+    void compact_ModifiedAndDeletedRules_ReclaimsOldTrees() {
+        // Given: 3 rules of 7 nodes; one gets a new 3-node tree, one is deleted
+        Rule kept = save(tree(4));
+        Rule modified = save(tree(4));
+        Rule deleted = save(tree(4));
+        modified.setRootNode(tree(2));
+        ruleRepository.save(modified);
+        ruleRepository.deleteById(deleted.getId());
+        assertEquals(7 + 7 + 3 + 7, nodeCount());
+
+        // When
+        NodeCompactionJob.CompactionResult result = job.compact();
+
+        // Then
+        assertEquals(14, result.candidates());
+        assertEquals(14, result.reclaimed());
+        assertEquals(7 + 3, nodeCount());
+        assertEquals(kept.getId(), ruleRepository.findById(kept.getId()).orElseThrow().getId());
+        assertEquals(0, job.compact().candidates());
+    }
+
+    @Test
+    void compact_SubtreeStillReferenced_IsKept() {
+        // Given: an orphaned root whose left subtree is re-attached under a live rule
+        Rule rule = save(tree(3));
+        Long orphanRoot = jdbcTemplate.queryForObject("SELECT root_node_id FROM rules WHERE id = ?", Long.class, rule.getId());
+        Long sharedChild = jdbcTemplate.queryForObject("SELECT left_node_id FROM node WHERE id = ?", Long.class, orphanRoot);
+        Rule other = save(tree(1));
+        Long otherRoot = jdbcTemplate.queryForObject("SELECT root_node_id FROM rules WHERE id = ?", Long.class, other.getId());
+        jdbcTemplate.update("UPDATE rules SET root_node_id = ? WHERE id = ?", sharedChild, other.getId());
+        jdbcTemplate.update("UPDATE rules SET root_node_id = ? WHERE id = ?", otherRoot, rule.getId());
+
+        // When
+        NodeCompactionJob.CompactionResult result = job.compact();
+
+        // Then: only the old root and its right operand go
+        assertEquals(2, result.reclaimed());
+        assertEquals(1 + 3, nodeCount());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM node WHERE id = ?", Integer.class, sharedChild));
+    }
+}
@@ -0,0 +1,138 @@
+package com.ruleengine;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.OffHeapRuleStore;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Node;
+import com.ruleengine.repository.RuleRepository;
+import com.ruleengine.service.CompiledRuleCache;
+import com.ruleengine.service.RuleCostPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class OffHeapRuleStoreTest {
+
+    private final RuleCompiler compiler = new RuleCompiler();
+
+    @TempDir
+    Path dir;
+
+    private List<CompiledRule> rules() {
+        Node seniorSales = new Node("operator",
+                new Node("operand", null, null, "age > 30"),
+                new Node("operand", null, null, "department = 'Sales'"),
+                "AND");
+        Node juniorOrRich = new Node("operator",
+                new Node("operand", null, null, "age < 25"),
+                new Node("operand", null, null, "salary > 50000.5"),
+                "OR");
+        return List.of(compiler.compile(9L, seniorSales), compiler.compile(3L, juniorOrRich));
+    }
+
+    @Test
+    void evaluate_SnapshotFile_MatchesHeapEvaluation() throws Exception {
+        // Given
+        List<CompiledRule> rules = rules();
+        OffHeapRuleStore store = OffHeapRuleStore.write(rules, dir.resolve("rules.snapshot"));
+        OffHeapRuleStore reopened = OffHeapRuleStore.open(dir.resolve("rules.snapshot"));
+
+        List<Map<String, Object>> records = List.of(
+                Map.of("age", 35, "department", "Sales", "salary", 10000),
+                Map.of("age", 20, "department", "IT", "salary", 10000),
+                Map.of("age", 40, "department", "HR", "salary", 60000));
+
+        // Then: restored rules build their truth tables like compiled ones
+        assertEquals(2, reopened.size());
+        for (Map<String, Object> record : records) {
+            for (CompiledRule rule : rules) {
+                CompiledRule restored = reopened.load(rule.getRuleId(), 4096);
+                assertEquals(rule.evaluate(record), store.evaluate(rule.getRuleId(), record));
+                assertEquals(rule.evaluate(record), reopened.evaluate(rule.getRuleId(), record));
+                assertEquals(rule.evaluate(record), restored.evaluate(record));
+                assertNotNull(restored.getTruthTable());
+            }
+        }
+    }
+
+    @Test
+    void evaluate_DirectBuffer_UnknownRuleThrows() {
+        // Given
+        OffHeapRuleStore store = OffHeapRuleStore.build(rules());
+
+        // When & Then
+        assertTrue(store.contains(3L));
+        assertThrows(CustomException.class, () -> store.evaluate(4L, Map.of("age", 1)));
+    }
+
+    @Test
+    void open_TruncatedSnapshot_IsRejected() throws Exception {
+        // Given
+        Path file = dir.resolve("rules.snapshot");
+        OffHeapRuleStore.write(rules(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = dir.resolve("truncated.snapshot");
+
+        // When & Then
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            assertThrows(CustomException.class, () -> OffHeapRuleStore.open(truncated), "length " + length);
+        }
+    }
+
+    @Test
+    void warmStart_TruncatedSnapshot_IsIgnored() throws Exception {
+        // Given
+        Path file = dir.resolve("rules.snapshot");
+        OffHeapRuleStore.write(rules(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 20));
+        CompiledRuleCache cache = new CompiledRuleCache(mock(RuleRepository.class), compiler,
+                new RuleCostPolicy(128, 1000, 2000, 5000), 1, file.toString());
+
+        // When
+        assertDoesNotThrow(cache::warmStart);
+
+        // Then: the background load replaces it with a readable (here empty) snapshot
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.size(file) != 32 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, OffHeapRuleStore.open(file).size());
+    }
+
+    @Test
+    void withChanges_CopiesUnchangedProgramsAndEncodesChangedOnes() {
+        // Given
+        OffHeapRuleStore store = OffHeapRuleStore.build(rules());
+        CompiledRule modified = compiler.compile(3L, new Node("operand", null, null, "salary > 90000"));
+        CompiledRule added = compiler.compile(5L, new Node("operand", null, null, "region IN ('EU', 'US')"));
+
+        // When
+        OffHeapRuleStore next = store.withChanges(List.of(modified, added), List.of(9L));
+
+        // Then: the old store is unchanged, the new one has the changes
+        Map<String, Object> record = Map.of("age", 40, "department", "Sales", "salary", 60000, "region", "EU");
+        assertTrue(store.evaluate(9L, record));
+        assertTrue(store.evaluate(3L, record));
+        assertArrayEquals(new long[]{3L, 5L}, next.ruleIds());
+        assertFalse(next.evaluate(3L, record));
+        assertTrue(next.evaluate(5L, record));
+        assertThrows(CustomException.class, () -> next.evaluate(9L, record));
+        assertArrayEquals(new long[]{5L}, next.matchingRuleIds(record, 0, next.size()));
+
+        // And: a further change still reads the programs copied from the first store
+        OffHeapRuleStore last = next.withChanges(List.of(), List.of(3L));
+        assertArrayEquals(new long[]{5L}, last.ruleIds());
+        assertTrue(last.evaluate(5L, record));
+    }
+}
@@ -0,0 +1,256 @@
+package com.ruleengine;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.Condition;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.compiler.TreeDiff;
+import com.ruleengine.exception.CustomException;
+import com.ruleengine.model.Node;
+import com.ruleengine.model.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleCompilerTest {
+
+    private final RuleCompiler compiler = new RuleCompiler();
+
+    private Node operand(String condition) {
+        return new Node("operand", null, null, condition);
+    }
+
+    private Node or(Node left, Node right) {
+        return new Node("operator", left, right, "OR");
+    }
+
+    private Node and(Node left, Node right) {
+        return new Node("operator", left, right, "AND");
+    }
+
+    // Stored tree: (age > 30 AND salary > 50000) AND (department = 'IT' OR experience > 5)
+    private Node storedTree() {
+        Node tree = and(and(operand("age > 30"), operand("salary > 50000")),
+                or(operand("department = 'IT'"), operand("experience > 5")));
+        long[] id = {1};
+        assignIds(tree, id);
+        return tree;
+    }
+
+    private void assignIds(Node node, long[] next) {
+        if (node == null) return;
+        assignIds(node.getLeft(), next);
+        assignIds(node.getRight(), next);
+        node.setId(next[0]++);
+    }
+
+    @Test
+    void parse_InAndNotIn_UseSetMembership() {
+        // Given
+        Condition in = Condition.parse("department IN ('Sales', 'IT')");
+        Condition notIn = Condition.parse("age NOT IN (30, 40.5)");
+
+        // Then
+        assertEquals(Condition.Operator.IN, in.getOperator());
+        assertEquals(List.of("Sales", "IT"), in.getValues());
+        assertTrue(in.test("IT"));
+        assertFalse(in.test("HR"));
+        assertFalse(notIn.test(30));
+        assertFalse(notIn.test(40.50001));
+        assertTrue(notIn.test(35));
+        assertThrows(CustomException.class, () -> in.test(5));
+    }
+
+    @Test
+    void compile_EqualityOrChain_RewrittenToSingleSetLookup() {
+        // Given: department = 'Sales' OR (age > 50 OR (department = 'IT' OR department = 'HR'))
+        Node root = or(operand("department = 'Sales'"),
+                or(operand("age > 50"), or(operand("department = 'IT'"), operand("department = 'HR'"))));
+
+        // When
+        CompiledRule rule = compiler.compile(1L, root);
+
+        // Then
+        assertEquals(2, rule.getConditions().length);
+        Condition set = rule.getConditions()[0];
+        assertEquals(Condition.Operator.IN, set.getOperator());
+        assertEquals(List.of("Sales", "IT", "HR"), set.getValues());
+        assertTrue(rule.evaluate(Map.of("department", "HR", "age", 20)));
+        assertTrue(rule.evaluate(Map.of("department", "Marketing", "age", 60)));
+        assertFalse(rule.evaluate(Map.of("department", "Marketing", "age", 20)));
+    }
+
+    @Test
+    void compile_LongNumericOrChain_MatchesOriginalSemantics() {
+        // Given
+        Node root = operand("age = 0");
+        for (int i = 1; i < 40; i++) {
+            root = or(root, operand("age = " + (i * 3)));
+        }
+
+        // When
+        CompiledRule rule = compiler.compile(2L, root);
+
+        // Then
+        assertEquals(1, rule.getConditions().length);
+        for (int age = -2; age < 130; age++) {
+            assertEquals(age % 3 == 0 && age >= 0 && age < 120, rule.evaluate(Map.of("age", age)), "age " + age);
+        }
+    }
+
+    @Test
+    void compile_DeepTree_CompilesWithoutRecursion() {
+        // Given: far deeper than the call stack would allow recursively
+        Node root = operand("age > 30");
+        for (int i = 0; i < 100_000; i++) {
+            root = i % 2 == 0 ? and(operand("salary > 1"), root) : or(root, operand("age < 0"));
+        }
+
+        // When
+        CompiledRule rule = compiler.compile(1L, root);
+
+        // Then
+        assertTrue(rule.evaluate(Map.of("age", 35, "salary", 10)));
+        assertFalse(rule.evaluate(Map.of("age", 20, "salary", 10)));
+    }
+
+    @Test
+    void treeDiff_ChangedThreshold_UpdatesOneNodeInPlace() {
+        // Given
+        Node stored = storedTree();
+        Node salary = stored.getLeft().getRight();
+        Node parsed = and(and(operand("age > 30"), operand("salary > 55000")),
+                or(operand("department = 'IT'"), operand("experience > 5")));
+
+        // When
+        TreeDiff diff = TreeDiff.apply(stored, parsed);
+
+        // Then: the operand and its two ancestors changed, nothing was inserted
+        assertSame(stored, diff.getRoot());
+        assertSame(salary, diff.getRoot().getLeft().getRight());
+        assertEquals("salary > 55000", salary.getValue());
+        assertEquals(1, diff.getUpdated());
+        assertEquals(0, diff.getInserted());
+        assertEquals(Set.of(salary.getId(), stored.getLeft().getId(), stored.getId()), diff.getChangedNodeIds());
+    }
+
+    @Test
+    void treeDiff_DifferentShape_InsertsOnlyThatSubtree() {
+        // Given
+        Node stored = storedTree();
+        Node orBranch = stored.getRight();
+        Node parsed = and(and(operand("age > 30"), operand("salary > 50000")), operand("experience > 5"));
+
+        // When
+        TreeDiff diff = TreeDiff.apply(stored, parsed);
+
+        // Then
+        assertSame(stored.getLeft(), diff.getRoot().getLeft());
+        assertNotSame(orBranch, diff.getRoot().getRight());
+        assertNull(diff.getRoot().getRight().getId());
+        assertEquals(1, diff.getInserted());
+        assertEquals(3, diff.getDetached());
+        assertFalse(diff.getChangedNodeIds().contains(stored.getLeft().getId()));
+    }
+
+    @Test
+    void treeDiff_DeepTree_MergesWithoutRecursion() {
+        // Given: a deep stored chain and the same chain with its innermost threshold changed
+        Node stored = operand("age > 30");
+        Node parsed = operand("age > 31");
+        stored.setId(0L);
+        for (int i = 1; i <= 100_000; i++) {
+            stored = and(operand("salary > 1"), stored);
+            stored.setId((long) i);
+            parsed = and(operand("salary > 1"), parsed);
+        }
+
+        // When
+        TreeDiff diff = TreeDiff.apply(stored, parsed);
+
+        // Then: one update, and the changed operand plus all its ancestors are marked changed
+        assertSame(stored, diff.getRoot());
+        assertEquals(1, diff.getUpdated());
+        assertEquals(0, diff.getInserted());
+        assertEquals(100_001, diff.getChangedNodeIds().size());
+    }
+
+    @Test
+    void recompile_AfterDiff_MatchesFullCompileAndKeepsUnchangedConditions() {
+        // Given
+        Node stored = storedTree();
+        Rule rule = new Rule(9L, "rule", stored, LocalDateTime.now());
+        CompiledRule previous = compiler.compile(rule);
+        Node parsed = and(and(operand("age > 30"), operand("salary > 55000")),
+                or(operand("department = 'IT'"), operand("experience > 5")));
+        TreeDiff diff = TreeDiff.apply(stored, parsed);
+        rule.setRootNode(diff.getRoot());
+
+        // When
+        CompiledRule recompiled = compiler.recompile(previous, rule, diff.getChangedNodeIds());
+
+        // Then
+        CompiledRule fresh = compiler.compile(rule);
+        assertArrayEquals(fresh.getCode(), recompiled.getCode());
+        assertSame(previous.getConditions()[0], recompiled.getConditions()[0]); // age > 30
+        assertEquals("salary > 55000", recompiled.getConditions()[1].getText());
+        assertSame(previous.getConditions()[2], recompiled.getConditions()[2]); // department = 'IT'
+        Map<String, Object> user = Map.of("age", 35, "salary", 52000, "department", "IT", "experience", 2);
+        assertTrue(previous.evaluate(user));
+        assertFalse(recompiled.evaluate(user));
+    }
+
+    // (age > 30 AND salary > 50000) OR (department IN ('IT', 'HR') AND experience = 5) OR age = 18
+    private Node thresholdRule() {
+        return or(and(operand("age > 30"), operand("salary > 50000")),
+                or(and(operand("department IN ('IT', 'HR')"), operand("experience = 5")), operand("age = 18")));
+    }
+
+    @Test
+    void compile_SmallDomains_TruthTableAgreesWithProgram() {
+        // Given
+        CompiledRule table = compiler.compile(1L, thresholdRule());
+        CompiledRule program = new RuleCompiler(0).compile(1L, thresholdRule());
+        Random random = new Random(3);
+        String[] departments = {"Sales", "Marketing", "IT", "HR"};
+        double[] edges = {18, 30, 50000, 5};
+
+        // Then: age, salary, experience, department split into 7 x 3 x 5 x 3 cells
+        assertNotNull(table.getTruthTable());
+        assertEquals(315, table.getTruthTable().getCells());
+        assertNull(program.getTruthTable());
+        for (int i = 0; i < 20_000; i++) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("age", random.nextBoolean() ? random.nextInt(60) : edges[random.nextInt(4)] + (random.nextInt(5) - 2) * 0.00005);
+            user.put("salary", random.nextBoolean() ? 40000 + random.nextInt(20001) : 50000.0 + random.nextGaussian());
+            user.put("experience", random.nextBoolean() ? random.nextInt(10) : 5 + (random.nextInt(5) - 2) * 0.00005);
+            user.put("department", departments[random.nextInt(departments.length)]);
+            assertEquals(program.evaluate(user), table.evaluate(user), user.toString());
+        }
+    }
+
+    @Test
+    void compile_OverTableCap_FallsBackToProgram() {
+        // Given
+        CompiledRule rule = new RuleCompiler(100).compile(1L, thresholdRule());
+
+        // Then
+        assertNull(rule.getTruthTable());
+        assertTrue(rule.evaluate(Map.of("age", 18, "salary", 0, "experience", 0, "department", "Sales")));
+    }
+
+    @Test
+    void evaluate_ValueOutsideTableDomain_UsesProgram() {
+        // Given
+        CompiledRule rule = compiler.compile(1L, thresholdRule());
+
+        // Then: a string age is not in the table; the program raises its usual error
+        assertNotNull(rule.getTruthTable());
+        assertThrows(CustomException.class,
+                () -> rule.evaluate(Map.of("age", "old", "salary", 0, "experience", 0, "department", "Sales")));
+        assertThrows(CustomException.class,
+                () -> rule.evaluate(Map.of("age", 40, "salary", 60000, "department", "Sales")));
+    }
+}
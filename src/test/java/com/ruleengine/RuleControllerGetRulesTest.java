@@ -0,0 +1,65 @@
+package com.ruleengine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruleengine.config.CorsConfig;
+import com.ruleengine.controller.RuleController;
+import com.ruleengine.model.Node;
+import com.ruleengine.model.Rule;
+import com.ruleengine.service.RuleService;
+import com.ruleengine.service.RulesResponseCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// /getRules served from the real RulesResponseCache, with the application's MVC configuration
+@WebMvcTest(RuleController.class)
+@Import({CorsConfig.class, RulesResponseCache.class})
+class RuleControllerGetRulesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RuleService ruleService;
+
+    @Test
+    void getRules_CachedJson_MatchesCreateResponse() throws Exception {
+        // Given
+        Rule rule = new Rule(1L, "senior", new Node("operand", null, null, "age > 30"),
+                LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+        when(ruleService.createRule("age > 30", "senior")).thenReturn(rule);
+        when(ruleService.getRules()).thenReturn(List.of(rule));
+
+        // When
+        String created = mockMvc.perform(post("/api/rules/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ruleString\": \"age > 30\", \"ruleName\": \"senior\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String listed = mockMvc.perform(get("/api/rules/getRules").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then: the cached bytes use the same mapper as the converter that wrote /create
+        JsonNode createdRule = objectMapper.readTree(created).get("rule");
+        JsonNode listedRule = objectMapper.readTree(listed).get("rules").get(0);
+        assertEquals("[2026,1,2,3,4,5]", createdRule.get("createdAt").toString());
+        assertEquals(createdRule.toString(), listedRule.toString());
+    }
+}
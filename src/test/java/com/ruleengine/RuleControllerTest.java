@@ -0,0 +1,141 @@
+package com.ruleengine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.ruleengine.controller.RuleController;
+import com.ruleengine.service.RuleService;
+import com.ruleengine.service.RulesResponseCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RuleController.class)
+class RuleControllerTest {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RuleService ruleService;
+
+    @MockBean
+    private RulesResponseCache rulesResponseCache;
+
+    private final Map<String, Object> userData = Map.of(
+            "age", 35, "department", "Sales", "salary", 75000, "experience", 8);
+
+    @Test
+    void evaluate_CborLean_ReturnsOnlyResult() throws Exception {
+        // Given
+        when(ruleService.evaluateRule(eq(1L), any())).thenReturn(true);
+
+        // When
+        byte[] body = mockMvc.perform(post("/api/rules/evaluate")
+                        .param("ruleId", "1")
+                        .param("lean", "true")
+                        .contentType(CBOR)
+                        .accept(CBOR)
+                        .content(cborMapper.writeValueAsBytes(userData)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        JsonNode response = cborMapper.readTree(body);
+        assertTrue(response.get("result").asBoolean());
+        assertEquals(1, response.size());
+    }
+
+    @Test
+    void evaluateMany_Lean_ReturnsBitset() throws Exception {
+        // Given
+        BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(2);
+        when(ruleService.evaluateRules(eq(List.of(4L, 5L, 6L)), any())).thenReturn(bits);
+
+        // When
+        byte[] body = mockMvc.perform(post("/api/rules/evaluateMany")
+                        .param("ruleIds", "4", "5", "6")
+                        .param("lean", "true")
+                        .contentType(CBOR)
+                        .accept(CBOR)
+                        .content(cborMapper.writeValueAsBytes(userData)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        BitSet decoded = BitSet.valueOf(cborMapper.readTree(body).get("bits").binaryValue());
+        assertEquals(bits, decoded);
+    }
+
+    @Test
+    void evaluate_Json_KeepsVerboseResponse() throws Exception {
+        // Given
+        when(ruleService.evaluateRule(eq(1L), any())).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(post("/api/rules/evaluate")
+                        .param("ruleId", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(userData)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result").value(false))
+                .andExpect(jsonPath("$.message").value("Rule conditions not met"))
+                .andExpect(jsonPath("$.evaluatedData.age").value(35));
+    }
+
+    @Test
+    void getRules_MatchingETag_ReturnsNotModified() throws Exception {
+        // Given
+        byte[] json = "{\"rules\":[],\"count\":0}".getBytes();
+        when(rulesResponseCache.get()).thenReturn(
+                new RulesResponseCache.Snapshot(3, "\"1-3\"", 1_700_000_000_000L, json, null));
+
+        // When & Then
+        mockMvc.perform(get("/api/rules/getRules"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(content().bytes(json));
+        mockMvc.perform(get("/api/rules/getRules").header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("ETag", "\"1-3\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getRules_AcceptsGzip_ReturnsCompressedBytes() throws Exception {
+        // Given
+        byte[] gzip = {31, -117, 8, 0};
+        when(rulesResponseCache.get()).thenReturn(
+                new RulesResponseCache.Snapshot(4, "\"1-4\"", 1_700_000_000_000L, new byte[10], gzip));
+
+        // When & Then
+        mockMvc.perform(get("/api/rules/getRules").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andExpect(content().bytes(gzip));
+    }
+}
@@ -0,0 +1,120 @@
+package com.ruleengine;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.model.Node;
+import com.ruleengine.stream.Decision;
+import com.ruleengine.stream.RuleEvaluationProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleEvaluationProcessorTest {
+
+    private final RuleCompiler compiler = new RuleCompiler();
+
+    @Test
+    void pipeline_SlowSubscriber_EmitsAllDecisionsWithinBounds() throws Exception {
+        // Given
+        CompiledRule rule = compiler.compile(7L, new Node("operand", null, null, "age > 30"));
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        RuleEvaluationProcessor processor = new RuleEvaluationProcessor(List.of(rule), workers, 8, 2, 32, 4);
+
+        List<Decision> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        processor.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            public void onSubscribe(Flow.Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            public void onNext(Decision decision) {
+                received.add(decision);
+                subscription.request(1);
+            }
+
+            public void onError(Throwable throwable) {
+                done.countDown();
+            }
+
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        // When
+        try (SubmissionPublisher<Map<String, Object>> source = new SubmissionPublisher<>()) {
+            source.subscribe(processor);
+            for (int i = 0; i < 500; i++) {
+                source.submit(i == 3 ? Map.of("name", "x") : Map.of("age", i % 60));
+                assertTrue(processor.getMetrics().getInFlightRecords() <= 32);
+            }
+        }
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        workers.shutdown();
+        assertEquals(500, received.size());
+        assertEquals(1, received.stream().filter(Decision::isError).count());
+        long matches = received.stream().filter(d -> d.matchedRuleIds().contains(7L)).count();
+        assertEquals(232, matches);
+        assertEquals(500, processor.getMetrics().getEmitted());
+        assertTrue(processor.getMetrics().getAverageBatchSize() <= 8);
+    }
+
+    @Test
+    void pipeline_UnexpectedEvaluationFailure_EmitsErrorAndKeepsRequesting() throws Exception {
+        // Given: records whose lookups throw something other than CustomException, and only one
+        // batch of demand, so a batch that failed to return its demand would stall the pipeline
+        CompiledRule rule = compiler.compile(7L, new Node("operand", null, null, "age > 30"));
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        RuleEvaluationProcessor processor = new RuleEvaluationProcessor(List.of(rule), workers, 4, 2, 4, 16);
+        Map<String, Object> broken = new HashMap<>() {
+            @Override
+            public Object get(Object key) {
+                throw new IllegalStateException("broken record");
+            }
+        };
+
+        List<Decision> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        processor.subscribe(new Flow.Subscriber<>() {
+            public void onSubscribe(Flow.Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            public void onNext(Decision decision) {
+                received.add(decision);
+            }
+
+            public void onError(Throwable throwable) {
+                done.countDown();
+            }
+
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        // When
+        try (SubmissionPublisher<Map<String, Object>> source = new SubmissionPublisher<>()) {
+            source.subscribe(processor);
+            for (int i = 0; i < 40; i++) {
+                source.submit(i % 2 == 0 ? broken : Map.of("age", 40));
+            }
+        }
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        workers.shutdown();
+        assertEquals(40, received.size());
+        assertEquals(20, received.stream().filter(Decision::isError).count());
+        assertTrue(received.stream().filter(Decision::isError).allMatch(d -> d.error().contains("broken record")));
+        assertEquals(20, processor.getMetrics().getErrors());
+    }
+}
@@ -1,17 +1,24 @@
 package com.ruleengine;
 
 
+import com.ruleengine.audit.DecisionAuditLog;
+import com.ruleengine.compiler.RuleCompiler;
 import com.ruleengine.exception.CustomException;
 import com.ruleengine.model.Node;
 import com.ruleengine.model.Rule;
 import com.ruleengine.repository.RuleRepository;
+import com.ruleengine.service.CompiledRuleCache;
+import com.ruleengine.service.RuleChangedEvent;
+import com.ruleengine.service.RuleCostPolicy;
 import com.ruleengine.service.RuleService;
+import com.ruleengine.service.RuleSetEvaluator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.*;
 
@@ -25,7 +32,21 @@ class RuleServiceTest {
     @Mock
     private RuleRepository ruleRepository;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RuleSetEvaluator ruleSetEvaluator;
+
+    @Mock
+    private DecisionAuditLog auditLog;
+
+    @Spy
+    private RuleCostPolicy costPolicy = new RuleCostPolicy(8, 15, 20, 40);
+
+    // Real compiled cache over the mocked repository, since evaluation runs the compiled programs
+    private CompiledRuleCache compiledRuleCache;
+
     private RuleService ruleService;
 
     private Rule seniorSalesRule;
@@ -34,6 +55,10 @@ class RuleServiceTest {
 
     @BeforeEach
     void setUp() {
+        compiledRuleCache = new CompiledRuleCache(ruleRepository, new RuleCompiler(), costPolicy, 1, "");
+        ruleService = new RuleService(ruleRepository, eventPublisher, compiledRuleCache, ruleSetEvaluator,
+                costPolicy, auditLog);
+
         // Setup test data
         seniorSalesRule = new Rule();
         seniorSalesRule.setId(1L);
@@ -51,6 +76,14 @@ class RuleServiceTest {
         userData.put("experience", 8);
     }
 
+    // Stores the rule as rule 1 and notifies the compiled cache, as the event listener would
+    private void store(Rule rule) {
+        rule.setId(1L);
+        lenient().when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+        lenient().when(ruleRepository.findAll()).thenReturn(List.of(rule));
+        compiledRuleCache.onRuleChanged(new RuleChangedEvent(1L, RuleChangedEvent.Type.MODIFIED));
+    }
+
     @Test
     void createRule_ValidRuleString_Success() {
         // Given
@@ -96,7 +129,7 @@ class RuleServiceTest {
         // Given
         String ruleString = "age > 30 AND department = 'Sales'";
         Rule rule = ruleService.createRule(ruleString, "Test Rule");
-        when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+        store(rule);
 
         // When
         boolean result = ruleService.evaluateRule(1L, userData);
@@ -146,7 +179,7 @@ class RuleServiceTest {
         // Given
         String complexRule = "(age > 30 AND department = 'Sales') OR (experience > 5 AND salary > 70000)";
         Rule rule = ruleService.createRule(complexRule, "Complex Rule");
-        when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+        store(rule);
 
         // When
         boolean result = ruleService.evaluateRule(1L, userData);
@@ -186,7 +219,7 @@ class RuleServiceTest {
             userData.put("department", dept);
             String ruleString = "department = '" + dept + "'";
             Rule rule = ruleService.createRule(ruleString, dept + " Rule");
-            when(ruleRepository.findById(any())).thenReturn(Optional.of(rule));
+            store(rule);
 
             // When
             boolean result = ruleService.evaluateRule(1L, userData);
@@ -207,7 +240,7 @@ class RuleServiceTest {
         for (Map.Entry<String, String> entry : comparisons.entrySet()) {
             // Given
             Rule rule = ruleService.createRule(entry.getKey(), "Numeric Rule");
-            when(ruleRepository.findById(any())).thenReturn(Optional.of(rule));
+            store(rule);
 
             // When
             boolean result = ruleService.evaluateRule(1L, userData);
@@ -240,4 +273,69 @@ class RuleServiceTest {
                 ruleService.deleteRule(1L)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void createRule_StoresCostScore() {
+        // Given
+        when(ruleRepository.save(any(Rule.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        // When
+        Rule result = ruleService.createRule("age > 30 AND department IN ('Sales', 'IT')", "Scored Rule");
+
+        // Then: AND (1) + comparison (1) + IN list (2)
+        assertEquals(4, result.getCost().getScore());
+        assertEquals(2, result.getCost().getDepth());
+        assertEquals(3, result.getCost().getNodeCount());
+    }
+
+    @Test
+    void createRule_OverAdmissionLimits_ThrowsException() {
+        // Given: 8 chained conditions need 15 nodes and 8 levels, nesting is limited to 8
+        String tooManyNodes = String.join(" AND ", Collections.nCopies(9, "age > 30"));
+        String tooDeep = "(".repeat(9) + "age > 30 AND salary > 1" + ")".repeat(9);
+
+        // When & Then
+        assertThrows(CustomException.class, () -> ruleService.createRule(tooManyNodes, "Too Big"));
+        assertThrows(CustomException.class, () -> ruleService.createRule(tooDeep, "Too Deep"));
+        verify(ruleRepository, never()).save(any());
+    }
+
+    @Test
+    void evaluateRule_OverEvaluationBudget_ThrowsException() {
+        // Given: a stored rule with 41 operator nodes, e.g. one admitted before the limits existed
+        Node root = new Node("operand", null, null, "age > 30");
+        for (int i = 0; i < 41; i++) {
+            root = new Node("operator", root, new Node("operand", null, null, "age > 30"), "AND");
+        }
+        Rule legacy = new Rule();
+        legacy.setRootNode(root);
+        store(legacy);
+
+        // When & Then
+        assertThrows(CustomException.class, () -> ruleService.evaluateRule(1L, userData));
+    }
+
+    @Test
+    void evaluateRule_DeepTree_CompilesAndEvaluatesWithoutRecursion() {
+        // Given: far deeper than the call stack would allow recursively
+        RuleCostPolicy unboundedPolicy = new RuleCostPolicy(1_000_000, 1_000_000, 1_000_000, 1_000_000);
+        RuleService unbounded = new RuleService(ruleRepository, eventPublisher,
+                new CompiledRuleCache(ruleRepository, new RuleCompiler(), unboundedPolicy, 1, ""), ruleSetEvaluator,
+                unboundedPolicy, auditLog);
+        Node root = new Node("operand", null, null, "age > 30");
+        for (int i = 0; i < 100_000; i++) {
+            root = i % 2 == 0
+                    ? new Node("operator", new Node("operand", null, null, "salary > 1"), root, "AND")
+                    : new Node("operator", root, new Node("operand", null, null, "age < 0"), "OR");
+        }
+        Rule deep = new Rule();
+        deep.setRootNode(root);
+        store(deep);
+
+        // When
+        boolean result = unbounded.evaluateRule(1L, userData);
+
+        // Then
+        assertTrue(result);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ruleengine;
+
+import com.ruleengine.compiler.CompiledRule;
+import com.ruleengine.compiler.RuleCompiler;
+import com.ruleengine.compiler.ShardedRuleSet;
+import com.ruleengine.model.Node;
+import com.ruleengine.service.RuleSetEvaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetEvaluatorTest {
+
+    private final RuleCompiler compiler = new RuleCompiler();
+
+    private List<CompiledRule> ageRules(int count) {
+        List<CompiledRule> rules = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Node root = new Node("operand", null, null, "age > " + (i % 100));
+            // every tenth rule is larger, to exercise cost balancing
+            if (i % 10 == 0) {
+                root = new Node("operator", root, new Node("operand", null, null, "salary > 1000"), "AND");
+            }
+            rules.add(compiler.compile((long) count - i, root));
+        }
+        return rules;
+    }
+
+    @Test
+    void partition_BalancesCostAcrossShards() {
+        // When
+        ShardedRuleSet ruleSet = ShardedRuleSet.partition(ageRules(1000), 8);
+
+        // Then
+        long[] loads = Arrays.stream(ruleSet.getShards())
+                .mapToLong(shard -> Arrays.stream(shard).mapToLong(CompiledRule::cost).sum())
+                .toArray();
+        long max = Arrays.stream(loads).max().orElseThrow();
+        long min = Arrays.stream(loads).min().orElseThrow();
+        assertEquals(8, loads.length);
+        assertTrue(max - min <= 3, "unbalanced shards: " + Arrays.toString(loads));
+        assertEquals(1000, Arrays.stream(ruleSet.getShards()).mapToInt(s -> s.length).sum());
+    }
+
+    @Test
+    void matchingRuleIds_ParallelAndSequential_ReturnSameSortedIds() {
+        // Given
+        ShardedRuleSet ruleSet = ShardedRuleSet.partition(ageRules(5000), 16);
+        Map<String, Object> data = Map.of("age", 42, "salary", 500);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        // When
+        List<Long> parallel = new RuleSetEvaluator(pool, 0).matchingRuleIds(ruleSet, data);
+        List<Long> sequential = new RuleSetEvaluator(pool, Long.MAX_VALUE).matchingRuleIds(ruleSet, data);
+        pool.shutdown();
+
+        // Then: thresholds 0..41 match, minus the AND rules whose salary check fails
+        assertEquals(sequential, parallel);
+        assertEquals(50 * 42 - 50 * 5, parallel.size());
+        List<Long> sorted = new ArrayList<>(parallel);
+        Collections.sort(sorted);
+        assertEquals(sorted, parallel);
+    }
+}
@@ -0,0 +1,85 @@
+package com.ruleengine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruleengine.model.Node;
+import com.ruleengine.model.Rule;
+import com.ruleengine.service.RuleChangedEvent;
+import com.ruleengine.service.RuleService;
+import com.ruleengine.service.RulesResponseCache;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RulesResponseCacheTest {
+
+    private final RuleService ruleService = mock(RuleService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private List<Rule> rules(int count) {
+        List<Rule> rules = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            rules.add(new Rule(i, "rule" + i, new Node("operand", null, null, "age > " + i),
+                    LocalDateTime.of(2024, 10, 24, 10, 0)));
+        }
+        return rules;
+    }
+
+    @Test
+    void get_UnchangedRules_ServesCachedBytes() {
+        // Given
+        when(ruleService.getRules()).thenReturn(rules(3));
+        RulesResponseCache cache = new RulesResponseCache(ruleService, objectMapper, 1024);
+
+        // When
+        RulesResponseCache.Snapshot first = cache.get();
+        RulesResponseCache.Snapshot second = cache.get();
+
+        // Then
+        assertSame(first, second);
+        verify(ruleService, times(1)).getRules();
+        assertNull(first.gzip());
+        assertTrue(new String(first.json()).contains("\"count\":3"));
+    }
+
+    @Test
+    void onRuleChanged_BumpsVersionAndETag() {
+        // Given
+        when(ruleService.getRules()).thenReturn(rules(1), rules(2));
+        RulesResponseCache cache = new RulesResponseCache(ruleService, objectMapper, 1024);
+        RulesResponseCache.Snapshot before = cache.get();
+
+        // When
+        cache.onRuleChanged(new RuleChangedEvent(2L, RuleChangedEvent.Type.CREATED));
+        RulesResponseCache.Snapshot after = cache.get();
+
+        // Then
+        assertEquals(1, cache.getVersion());
+        assertNotEquals(before.eTag(), after.eTag());
+        assertTrue(after.lastModified() > before.lastModified());
+        assertTrue(new String(after.json()).contains("\"count\":2"));
+    }
+
+    @Test
+    void get_LargeResponse_AlsoKeepsGzipBytes() throws Exception {
+        // Given
+        when(ruleService.getRules()).thenReturn(rules(200));
+        RulesResponseCache cache = new RulesResponseCache(ruleService, objectMapper, 1024);
+
+        // When
+        RulesResponseCache.Snapshot snapshot = cache.get();
+
+        // Then
+        assertNotNull(snapshot.gzip());
+        assertTrue(snapshot.gzip().length < snapshot.json().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.gzip()))) {
+            assertArrayEquals(snapshot.json(), in.readAllBytes());
+        }
+    }
+}
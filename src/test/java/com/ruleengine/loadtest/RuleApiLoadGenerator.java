@@ -0,0 +1,316 @@
+package com.ruleengine.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruleengine.RuleEngineApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// End-to-end load generator for the REST API. Starts the application on a random port
+// against an in-memory H2 database, seeds rules and then drives the endpoints with an
+// open-model (fixed arrival rate) workload. Latency is measured from each request's
+// scheduled start, so a stalled server shows up in the percentiles instead of silently
+// lowering the offered load.
+//
+//   mvn -Ploadtest test-compile exec:java -Dload.rate=2000 -Dload.duration=60
+//
+// Settings (system properties):
+//   load.rules        rules seeded before the run             (default 1000)
+//   load.conditions   conditions per generated rule, >= 2      (default 4)
+//   load.rate         requests per second                      (default 500)
+//   load.warmup       warm-up seconds, not recorded            (default 10)
+//   load.duration     measured seconds                         (default 30)
+//   load.clients      HTTP client threads                      (default 64)
+//   load.max-pending  outstanding requests before dropping     (default 10000)
+//   load.mix          endpoint weights                         (default evaluate:85,create:5,combine:5,getRules:5)
+//   load.output       directory for .hgrm percentile files     (optional)
+public class RuleApiLoadGenerator {
+
+    private static final String[] DEPARTMENTS = {"Sales", "Marketing", "IT", "HR"};
+
+    private final int seedRules = Integer.getInteger("load.rules", 1000);
+    private final int conditions = Math.max(2, Integer.getInteger("load.conditions", 4));
+    private final int rate = Integer.getInteger("load.rate", 500);
+    private final int warmupSeconds = Integer.getInteger("load.warmup", 10);
+    private final int durationSeconds = Integer.getInteger("load.duration", 30);
+    private final int clients = Integer.getInteger("load.clients", 64);
+    private final int maxPending = Integer.getInteger("load.max-pending", 10_000);
+    private final String mix = System.getProperty("load.mix", "evaluate:85,create:5,combine:5,getRules:5");
+    private final String output = System.getProperty("load.output");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<Long> ruleIds = new CopyOnWriteArrayList<>();
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    private HttpClient client;
+    private String baseUrl;
+
+    public static void main(String[] args) {
+        int status = 0;
+        try {
+            new RuleApiLoadGenerator().run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        // HttpClient worker threads are not daemons
+        System.exit(status);
+    }
+
+    private void run() throws Exception {
+        ConfigurableApplicationContext context = startApplication();
+        try {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port + "/api/rules";
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newFixedThreadPool(clients))
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            parseMix();
+            seed();
+
+            System.out.printf("Warm-up: %d s at %d req/s%n", warmupSeconds, rate);
+            drive(warmupSeconds);
+            awaitPending();
+            endpoints.values().forEach(Endpoint::reset);
+            dropped.reset();
+
+            System.out.printf("Measuring: %d s at %d req/s%n", durationSeconds, rate);
+            drive(durationSeconds);
+            awaitPending();
+
+            report(System.out);
+        } finally {
+            context.close();
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        long start = System.nanoTime();
+        ConfigurableApplicationContext context = SpringApplication.run(RuleEngineApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database=h2",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--logging.level.root=WARN");
+        System.out.printf("Application started in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+        return context;
+    }
+
+    private void parseMix() {
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            String name = parts[0];
+            if (!Set.of("evaluate", "create", "combine", "getRules").contains(name)) {
+                throw new IllegalArgumentException("Unknown endpoint in load.mix: " + name);
+            }
+            endpoints.put(name, new Endpoint(name, Integer.parseInt(parts[1])));
+        }
+    }
+
+    private void seed() throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        for (int i = 0; i < seedRules; i++) {
+            inFlight.add(client.sendAsync(createRequest(ThreadLocalRandom.current()), HttpResponse.BodyHandlers.ofString())
+                    .thenAccept(this::rememberRule));
+            if (inFlight.size() == clients) {
+                CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get();
+                inFlight.clear();
+            }
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get();
+        if (ruleIds.size() < 2) {
+            throw new IllegalStateException("Seeding failed, only " + ruleIds.size() + " rules created");
+        }
+        System.out.printf("Seeded %d rules with %d conditions each in %d ms%n",
+                ruleIds.size(), conditions, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Schedules requests at a fixed rate for the given number of seconds
+    private void drive(int seconds) {
+        long interval = 1_000_000_000L / rate;
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        int totalWeight = endpoints.values().stream().mapToInt(e -> e.weight).sum();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Endpoint endpoint = pick(random.nextInt(totalWeight));
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                dropped.increment();
+                continue;
+            }
+            client.sendAsync(request(endpoint.name, random), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        long latency = System.nanoTime() - intended;
+                        pending.decrementAndGet();
+                        if (error != null || response.statusCode() >= 400) {
+                            endpoint.errors.increment();
+                            return;
+                        }
+                        endpoint.recorder.recordValue(latency);
+                        if (endpoint.name.equals("create")) {
+                            rememberRule(response);
+                        }
+                    });
+        }
+    }
+
+    private Endpoint pick(int ticket) {
+        for (Endpoint endpoint : endpoints.values()) {
+            ticket -= endpoint.weight;
+            if (ticket < 0) return endpoint;
+        }
+        throw new IllegalStateException("Empty load.mix");
+    }
+
+    private HttpRequest request(String endpoint, ThreadLocalRandom random) {
+        return switch (endpoint) {
+            case "evaluate" -> post("/evaluate?ruleId=" + anyRule(random), userData(random));
+            case "combine" -> post("/combine", "[" + anyRule(random) + "," + anyRule(random) + "]");
+            case "getRules" -> HttpRequest.newBuilder(URI.create(baseUrl + "/getRules")).GET().build();
+            default -> createRequest(random);
+        };
+    }
+
+    private HttpRequest createRequest(ThreadLocalRandom random) {
+        StringBuilder rule = new StringBuilder(condition(random));
+        for (int i = 1; i < conditions; i++) {
+            String operator = random.nextBoolean() ? "AND" : "OR";
+            rule.insert(0, '(').append(") ").append(operator).append(' ').append(condition(random));
+        }
+        Map<String, String> body = Map.of("ruleName", "load-" + random.nextInt(1_000_000), "ruleString", rule.toString());
+        try {
+            return post("/create", mapper.writeValueAsString(body));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String condition(ThreadLocalRandom random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> "age > " + random.nextInt(20, 60);
+            case 1 -> "salary > " + random.nextInt(20, 120) * 1000;
+            case 2 -> "experience > " + random.nextInt(0, 15);
+            default -> "department = '" + DEPARTMENTS[random.nextInt(DEPARTMENTS.length)] + "'";
+        };
+    }
+
+    private String userData(ThreadLocalRandom random) {
+        return String.format("{\"age\":%d,\"department\":\"%s\",\"salary\":%d,\"experience\":%d}",
+                random.nextInt(18, 70), DEPARTMENTS[random.nextInt(DEPARTMENTS.length)],
+                random.nextInt(20, 150) * 1000, random.nextInt(0, 30));
+    }
+
+    private long anyRule(ThreadLocalRandom random) {
+        return ruleIds.get(random.nextInt(ruleIds.size()));
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private void rememberRule(HttpResponse<String> response) {
+        if (response.statusCode() != 200) return;
+        try {
+            JsonNode id = mapper.readTree(response.body()).path("rule").path("id");
+            if (id.isNumber()) {
+                ruleIds.add(id.asLong());
+            }
+        } catch (Exception ignored) {
+            // not a create response
+        }
+    }
+
+    private void awaitPending() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (pending.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void report(PrintStream out) throws Exception {
+        out.printf("%n%-10s %10s %10s %10s %10s %10s %10s %8s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        Histogram total = new Histogram(3);
+        for (Endpoint endpoint : endpoints.values()) {
+            Histogram histogram = endpoint.recorder.getIntervalHistogram();
+            total.add(histogram);
+            print(out, endpoint.name, histogram, endpoint.errors.sum());
+            if (output != null) {
+                Path dir = Files.createDirectories(Path.of(output));
+                try (PrintStream file = new PrintStream(Files.newOutputStream(dir.resolve(endpoint.name + ".hgrm")))) {
+                    histogram.outputPercentileDistribution(file, 1_000_000.0);
+                }
+            }
+        }
+        print(out, "total", total, endpoints.values().stream().mapToLong(e -> e.errors.sum()).sum());
+        out.printf("dropped (over %d pending): %d%n", maxPending, dropped.sum());
+    }
+
+    private void print(PrintStream out, String name, Histogram histogram, long errors) {
+        out.printf("%-10s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / (double) durationSeconds,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMaxValue() / 1e6,
+                errors);
+    }
+
+    private static final class Endpoint {
+        private final String name;
+        private final int weight;
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+
+        Endpoint(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+
+        void reset() {
+            recorder.reset();
+            errors.reset();
+        }
+    }
+}
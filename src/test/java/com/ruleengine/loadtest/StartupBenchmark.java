@@ -0,0 +1,177 @@
+package com.ruleengine.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Cold-start benchmark: launches the packaged application as a fresh JVM and measures the time
+// until the first successful rule evaluation (create one rule, evaluate it), with and without
+// the faststart optimizations (AOT, CDS archive, lazy initialization). Runs alternate between
+// the two modes. Needs the output of the faststart profile:
+//
+//   mvn -Pfaststart package -DskipTests
+//   mvn -Ploadtest test-compile exec:java -Dload.main=com.ruleengine.loadtest.StartupBenchmark
+//
+// Settings (system properties):
+//   startup.dir       extracted application with application.jsa  (default target/faststart)
+//   startup.runs      launches per mode                            (default 5)
+//   startup.timeout   seconds before a launch counts as failed     (default 120)
+// Each launch uses an in-memory H2 database; its output goes to startup.dir/logs.
+public class StartupBenchmark {
+
+    private static final String RULE = "{\"ruleName\":\"startup\",\"ruleString\":\"age > 30 AND department = 'Sales'\"}";
+    private static final String USER = "{\"age\":35,\"department\":\"Sales\",\"salary\":50000,\"experience\":3}";
+
+    private final Path dir = Path.of(System.getProperty("startup.dir", "target/faststart")).toAbsolutePath();
+    private final int runs = Integer.getInteger("startup.runs", 5);
+    private final long timeoutNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("startup.timeout", 120));
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private enum Mode {
+        DEFAULT(List.of(), List.of()),
+        FASTSTART(List.of("-XX:SharedArchiveFile=application.jsa", "-Xlog:cds=error", "-Dspring.aot.enabled=true"),
+                List.of("--spring.profiles.active=faststart"));
+
+        final List<String> jvmArgs;
+        final List<String> appArgs;
+
+        Mode(List<String> jvmArgs, List<String> appArgs) {
+            this.jvmArgs = jvmArgs;
+            this.appArgs = appArgs;
+        }
+    }
+
+    public static void main(String[] args) {
+        int status = 0;
+        try {
+            new StartupBenchmark().run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    private void run() throws Exception {
+        Path jar = findApplicationJar();
+        Path h2 = Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Files.createDirectories(dir.resolve("logs"));
+
+        Map<Mode, List<Long>> results = new EnumMap<>(Mode.class);
+        for (int i = 1; i <= runs; i++) {
+            for (Mode mode : Mode.values()) {
+                long millis = launch(mode, jar, h2, i);
+                results.computeIfAbsent(mode, m -> new ArrayList<>()).add(millis);
+                System.out.printf("run %d %-9s %6d ms%n", i, mode.name().toLowerCase(), millis);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-10s %8s %8s %8s%n", "mode", "min ms", "median", "max ms");
+        for (Map.Entry<Mode, List<Long>> entry : results.entrySet()) {
+            List<Long> times = new ArrayList<>(entry.getValue());
+            Collections.sort(times);
+            System.out.printf("%-10s %8d %8d %8d%n", entry.getKey().name().toLowerCase(),
+                    times.get(0), times.get(times.size() / 2), times.get(times.size() - 1));
+        }
+    }
+
+    // Time from process start to the first successful evaluate response
+    private long launch(Mode mode, Path jar, Path h2, int run) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(mode.jvmArgs);
+        // Appending to the archived class path keeps the CDS archive usable
+        command.addAll(List.of("-cp", jar + java.io.File.pathSeparator + h2, "com.ruleengine.RuleEngineApplication"));
+        command.addAll(mode.appArgs);
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database=h2",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--rules.compaction.enabled=false"));
+
+        Path log = dir.resolve("logs").resolve(mode.name().toLowerCase() + "-" + run + ".log");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(dir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            String base = "http://localhost:" + port + "/api/rules";
+            String created = await(process, start, post(base + "/create", RULE));
+            long ruleId = Long.parseLong(created.replaceAll("(?s).*\"rule\":\\{\"id\":(\\d+).*", "$1"));
+            await(process, start, post(base + "/evaluate?ruleId=" + ruleId, USER));
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    // Retries until the request succeeds; returns the response body
+    private String await(Process process, long start, HttpRequest request) throws Exception {
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + dir.resolve("logs"));
+            }
+            if (System.nanoTime() - start > timeoutNanos) {
+                throw new IllegalStateException("No successful " + request.uri().getPath() + " before the timeout");
+            }
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    return response.body();
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private Path findApplicationJar() throws IOException {
+        if (!Files.exists(dir.resolve("application.jsa"))) {
+            throw new IllegalStateException("No CDS archive in " + dir + ", run mvn -Pfaststart package first");
+        }
+        try (var files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No application jar in " + dir));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}